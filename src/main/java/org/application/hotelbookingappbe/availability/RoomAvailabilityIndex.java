@@ -0,0 +1,156 @@
+package org.application.hotelbookingappbe.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    In-memory availability index per room:
+    - Bir odanın booking'leri ilk sorguda DB'den (projection ile) bir kez yüklenir, Room.bookings koleksiyonuna dokunulmaz
+    - Stay'ler yarı açık [checkIn, checkOut) aralık olarak tutulur (checkOut günü bir sonraki misafirin checkIn günü olabilir)
+    - Aralıklar birleştirilmiş (non-overlapping) sıralı bir TreeMap'te saklanır, overlap sorgusu O(log n)'dir
+    - Odalar boyut sınırlı ve TTL'li bir cache'te tutulur, TTL başka node'lardaki booking/iptallerin en geç ne zaman
+      görüleceğini belirler; ledger çakışma bildirirse oda hemen düşürülür (evictRoom)
+    - DB sorgusu cache lock'u dışında çalışır; yükleme sürerken bir yazma olduysa sonuç cache'e konmaz
+    - Hit/miss/eviction metrikleri cache.gets / cache.evictions (cache=room-stays) olarak yayınlanır
+*/
+@Component
+public class RoomAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, RoomStays> rooms;
+    private final AtomicLong writes = new AtomicLong();     // Bumped by every local change, a load that overlaps one is not cached
+
+    public RoomAvailabilityIndex(BookingRepository bookingRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${availability.index.max-rooms:10000}") long maxRooms,
+                                 @Value("${availability.index.ttl:PT1M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.rooms = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<Long, RoomStays>build(), "room-stays");
+    }
+
+    public boolean isAvailable(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        return !stays(roomId).overlaps(checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+    }
+
+    // Rooms that are not loaded are left alone, their next query reads the committed booking from the database
+    public void addBooking(Long roomId, Long bookingId, LocalDate checkInDate, LocalDate checkOutDate) {
+        writes.incrementAndGet();
+        RoomStays roomStays = rooms.getIfPresent(roomId);
+
+        if (roomStays != null) {
+            roomStays.add(bookingId, checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+        }
+    }
+
+    public void removeBooking(Long roomId, Long bookingId) {
+        writes.incrementAndGet();
+        RoomStays roomStays = rooms.getIfPresent(roomId);
+
+        if (roomStays != null) {
+            roomStays.remove(bookingId);
+        }
+    }
+
+    public void evictRoom(Long roomId) {
+        writes.incrementAndGet();
+        rooms.invalidate(roomId);
+    }
+
+    private RoomStays stays(Long roomId) {
+        RoomStays cached = rooms.getIfPresent(roomId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Loaded without holding any cache lock; concurrent loads of the same room just both query
+        long writesBefore = writes.get();
+        RoomStays loaded = load(roomId);
+        if (writes.get() != writesBefore) {
+            return loaded;
+        }
+
+        RoomStays raced = rooms.asMap().putIfAbsent(roomId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private RoomStays load(Long roomId) {
+        RoomStays roomStays = new RoomStays();
+        for (BookingStay stay : bookingRepository.findStaysByRoomId(roomId)) {
+            roomStays.add(stay.getBookingId(), stay.getCheckInDate().toEpochDay(), stay.getCheckOutDate().toEpochDay());
+        }
+        return roomStays;
+    }
+
+    private static final class RoomStays {
+        private final Map<Long, long[]> stays = new HashMap<>();            // bookingId -> [checkIn, checkOut) as epoch days
+        private final TreeMap<Long, Long> occupied = new TreeMap<>();       // Merged, non-overlapping blocks: start -> end
+
+        synchronized boolean overlaps(long start, long end) {
+            if (start >= end) {
+                return false;
+            }
+
+            // Blocks are disjoint, so only the last block starting before "end" can reach into [start, end)
+            Map.Entry<Long, Long> block = occupied.lowerEntry(end);
+            return block != null && block.getValue() > start;
+        }
+
+        synchronized void add(long bookingId, long start, long end) {
+            if (start >= end || stays.putIfAbsent(bookingId, new long[]{start, end}) != null) {
+                return;
+            }
+            cover(start, end);
+        }
+
+        synchronized void remove(long bookingId) {
+            long[] stay = stays.remove(bookingId);
+
+            if (stay == null || stay[0] >= stay[1]) {
+                return;
+            }
+
+            // Drop the whole block and re-cover it with the stays that are still inside it
+            Map.Entry<Long, Long> block = occupied.floorEntry(stay[0]);
+            occupied.remove(block.getKey());
+
+            for (long[] other : stays.values()) {
+                if (other[0] < block.getValue() && other[1] > block.getKey()) {
+                    cover(other[0], other[1]);
+                }
+            }
+        }
+
+        private void cover(long start, long end) {
+            Map.Entry<Long, Long> previous = occupied.floorEntry(start);
+            if (previous != null && previous.getValue() >= start) {
+                start = previous.getKey();
+                end = Math.max(end, previous.getValue());
+            }
+
+            Map.Entry<Long, Long> next = occupied.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                occupied.remove(next.getKey());
+                next = occupied.ceilingEntry(start);
+            }
+
+            occupied.put(start, end);
+        }
+    }
+}
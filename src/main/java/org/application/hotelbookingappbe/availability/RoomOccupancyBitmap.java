@@ -0,0 +1,381 @@
+package org.application.hotelbookingappbe.availability;
+
+import org.application.hotelbookingappbe.catalog.RoomTypeDictionary;
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.dto.RoomDto;
+import org.application.hotelbookingappbe.dto.RoomStaysChange;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+    Occupancy engine for availability search:
+    - Her oda için bir bitset tutulur (1 bit = 1 gece), horizon bugünden itibaren horizonDays gecedir
+    - Odalar normalize edilmiş roomType key'ine göre gruplanır, tarih aralığı araması maskelenmiş long word
+      karşılaştırmalarına indirgenir
+    - Startup'ta ve her gece DB'den yeniden kurulur, addBooking/deleteBooking ve oda değişikliklerinde incremental güncellenir
+    - Diğer node'ların booking/iptalleri ve oda ekleme/güncellemeleri room.stays_changed_at poll edilerek alınır, değişen
+      odalar tipleriyle kaydedilir (bilinmeyen oda eklenir, tipi değişen oda grubuna taşınır) ve geceleri DB'den yeniden
+      okunur. Geç commit olan transaction'lar için son refreshWindow tekrar taranır
+    - Release edilen geceler, odanın kalan stay'lerinden yeniden hesaplanır (çakışan başka stay'in gecesi silinmez)
+    - Horizon dışındaki sorgular için Optional.empty() döner, çağıran taraf DB'ye düşer
+*/
+@Component
+public class RoomOccupancyBitmap {
+    private static final Logger logger = LoggerFactory.getLogger(RoomOccupancyBitmap.class);
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final int horizonDays;
+    private final Duration refreshWindow;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Consumer<Bitmaps>> pendingUpdates = new ArrayList<>();
+    private Bitmaps bitmaps;                // null until the first rebuild finishes
+    private boolean loading;                // A rebuild or refresh is reading the DB, updates are also queued for replay
+    private LocalDateTime lastChange = NEVER;   // Newest room.stays_changed_at seen, DB clock (guarded by this)
+
+    public RoomOccupancyBitmap(RoomRepository roomRepository,
+                               BookingRepository bookingRepository,
+                               @Value("${availability.bitmap.horizon-days:731}") int horizonDays,
+                               @Value("${availability.bitmap.refresh-window:PT30S}") Duration refreshWindow) {
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.horizonDays = horizonDays;
+        this.refreshWindow = refreshWindow;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${availability.bitmap.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuild() {
+        startLoading();
+
+        Bitmaps rebuilt;
+        LocalDateTime changedBefore;
+        try {
+            // Read before the stays: a change committed during the load is picked up by the next refresh
+            changedBefore = Objects.requireNonNullElse(roomRepository.findLastStaysChange(), NEVER);
+            rebuilt = load(LocalDate.now().toEpochDay());
+        } catch (RuntimeException ex) {
+            // Keep serving from the previous bitmaps (or the DB fallback) until the next rebuild
+            logger.error("Occupancy bitmap rebuild failed: {}", ex.getMessage());
+            finishLoading(null);
+            return;
+        }
+
+        finishLoading(() -> {
+            // Updates that raced with the DB load are replayed on top of the new bitmaps
+            pendingUpdates.forEach(update -> update.accept(rebuilt));
+            bitmaps = rebuilt;
+        });
+        lastChange = changedBefore;
+
+        logger.info("Occupancy bitmap rebuilt for {} rooms over {} nights", rebuilt.rooms.size(), horizonDays);
+    }
+
+    // Rooms created, retyped, booked or cancelled (on any node) since the last check get their type and nights reloaded
+    @Scheduled(fixedDelayString = "${availability.bitmap.refresh-interval:PT5S}",
+            initialDelayString = "${availability.bitmap.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        long origin;
+        lock.readLock().lock();
+        try {
+            if (bitmaps == null) {
+                return;             // The next rebuild loads everything
+            }
+            origin = bitmaps.origin;
+        } finally {
+            lock.readLock().unlock();
+        }
+        startLoading();
+
+        Map<Long, String> typesByRoom = new HashMap<>();
+        Map<Long, List<BookingStay>> staysByRoom = new HashMap<>();
+        LocalDateTime newest = lastChange;
+        try {
+            List<RoomStaysChange> changes = roomRepository.findStaysChangedSince(lastChange.minus(refreshWindow));
+            if (changes.isEmpty()) {
+                finishLoading(null);
+                return;
+            }
+
+            for (RoomStaysChange change : changes) {
+                typesByRoom.put(change.getRoomId(), change.getRoomType());
+                staysByRoom.put(change.getRoomId(), new ArrayList<>());
+                newest = newest.isAfter(change.getStaysChangedAt()) ? newest : change.getStaysChangedAt();
+            }
+
+            LocalDate from = LocalDate.ofEpochDay(origin);
+            LocalDate to = LocalDate.ofEpochDay(origin + horizonDays);
+            for (BookingStay stay : bookingRepository.findStaysByRoomIdInBetween(staysByRoom.keySet(), from, to)) {
+                staysByRoom.get(stay.getRoomId()).add(stay);
+            }
+        } catch (RuntimeException ex) {
+            // The same window is scanned again on the next refresh
+            logger.warn("Occupancy bitmap refresh failed: {}", ex.getMessage());
+            finishLoading(null);
+            return;
+        }
+
+        finishLoading(() -> {
+            typesByRoom.forEach(bitmaps::putRoom);
+            staysByRoom.forEach(bitmaps::reset);
+            // Local updates made after the DB read are applied again on top of the reloaded rooms
+            pendingUpdates.forEach(update -> update.accept(bitmaps));
+        });
+        lastChange = newest;
+    }
+
+    private void startLoading() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void finishLoading(Runnable apply) {
+        lock.writeLock().lock();
+        try {
+            if (apply != null) {
+                apply.run();
+            }
+            pendingUpdates.clear();
+            loading = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the available room ids (ascending) or empty if the range is not covered by the bitmap
+    public Optional<List<Long>> findAvailableRoomIds(String roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        lock.readLock().lock();
+        try {
+            if (bitmaps == null || !bitmaps.covers(checkInDate.toEpochDay(), checkOutDate.toEpochDay())) {
+                return Optional.empty();
+            }
+
+            int from = bitmaps.night(checkInDate.toEpochDay());
+            int to = bitmaps.night(checkOutDate.toEpochDay());
+            List<Long> roomIds = new ArrayList<>();
+
+            for (RoomNights room : bitmaps.roomsOfType(RoomTypeDictionary.normalize(roomType))) {
+                if (!room.anyOccupied(from, to)) {
+                    roomIds.add(room.roomId);
+                }
+            }
+
+            return Optional.of(roomIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void occupy(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        update(bitmaps -> bitmaps.mark(roomId, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), true));
+    }
+
+    // Must run after the cancellation commits and under the room lock, so no local booking of the room interleaves
+    public void release(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<BookingStay> remaining = bookingRepository.findStaysByRoomIdInBetween(List.of(roomId), checkInDate, checkOutDate);
+        update(bitmaps -> {
+            bitmaps.mark(roomId, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), false);
+            // Another stay may still cover some of the released nights
+            remaining.forEach(stay -> bitmaps.mark(roomId, stay.getCheckInDate().toEpochDay(), stay.getCheckOutDate().toEpochDay(), true));
+        });
+    }
+
+    public void registerRoom(Long roomId, String roomType) {
+        update(bitmaps -> bitmaps.putRoom(roomId, roomType));
+    }
+
+    public void removeRoom(Long roomId) {
+        update(bitmaps -> bitmaps.removeRoom(roomId));
+    }
+
+    private void update(Consumer<Bitmaps> update) {
+        lock.writeLock().lock();
+        try {
+            if (bitmaps != null) {
+                update.accept(bitmaps);
+            }
+            if (loading) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Bitmaps load(long origin) {
+        Bitmaps loaded = new Bitmaps(origin, horizonDays);
+
+        for (RoomDto room : roomRepository.findAllRoomDtos()) {
+            loaded.putRoom(room.getId(), room.getRoomType());
+        }
+
+        LocalDate from = LocalDate.ofEpochDay(origin);
+        LocalDate to = LocalDate.ofEpochDay(origin + horizonDays);
+        for (BookingStay stay : bookingRepository.findStaysBetween(from, to)) {
+            loaded.mark(stay.getRoomId(), stay.getCheckInDate().toEpochDay(), stay.getCheckOutDate().toEpochDay(), true);
+        }
+
+        return loaded;
+    }
+
+    private static final class Bitmaps {
+        private final long origin;          // Epoch day of bit 0
+        private final int horizonDays;
+        private final Map<Long, RoomNights> rooms = new HashMap<>();
+        private final Map<String, RoomNights[]> roomsByType = new HashMap<>();     // Sorted by room id
+
+        Bitmaps(long origin, int horizonDays) {
+            this.origin = origin;
+            this.horizonDays = horizonDays;
+        }
+
+        boolean covers(long checkIn, long checkOut) {
+            return checkIn >= origin && checkOut <= origin + horizonDays;
+        }
+
+        int night(long epochDay) {
+            return (int) (epochDay - origin);
+        }
+
+        RoomNights[] roomsOfType(String roomType) {
+            return roomsByType.getOrDefault(roomType, new RoomNights[0]);
+        }
+
+        void mark(Long roomId, long checkIn, long checkOut, boolean occupied) {
+            RoomNights room = rooms.get(roomId);
+            int from = (int) Math.max(0, checkIn - origin);
+            int to = (int) Math.min(horizonDays, checkOut - origin);
+
+            if (room != null && from < to) {
+                room.mark(from, to, occupied);
+            }
+        }
+
+        // Replaces the room's nights with the given stays, the room is registered with its type before
+        void reset(Long roomId, List<BookingStay> stays) {
+            RoomNights room = rooms.get(roomId);
+
+            if (room != null) {
+                room.clear();
+                stays.forEach(stay -> mark(roomId, stay.getCheckInDate().toEpochDay(), stay.getCheckOutDate().toEpochDay(), true));
+            }
+        }
+
+        void putRoom(Long roomId, String roomTypeName) {
+            String roomType = RoomTypeDictionary.normalize(roomTypeName);
+            RoomNights room = rooms.get(roomId);
+
+            if (room == null) {
+                room = new RoomNights(roomId, roomType, horizonDays);
+                rooms.put(roomId, room);
+            } else if (!Objects.equals(room.roomType, roomType)) {
+                removeFromType(room);
+                room.roomType = roomType;
+            } else {
+                return;
+            }
+
+            RoomNights[] group = roomsOfType(roomType);
+            RoomNights[] grown = Arrays.copyOf(group, group.length + 1);
+            grown[group.length] = room;
+            Arrays.sort(grown, Comparator.comparingLong(r -> r.roomId));
+            roomsByType.put(roomType, grown);
+        }
+
+        void removeRoom(Long roomId) {
+            RoomNights room = rooms.remove(roomId);
+
+            if (room != null) {
+                removeFromType(room);
+            }
+        }
+
+        private void removeFromType(RoomNights room) {
+            RoomNights[] remaining = Arrays.stream(roomsOfType(room.roomType))
+                    .filter(r -> r != room)
+                    .toArray(RoomNights[]::new);
+
+            if (remaining.length == 0) {
+                roomsByType.remove(room.roomType);
+            } else {
+                roomsByType.put(room.roomType, remaining);
+            }
+        }
+    }
+
+    private static final class RoomNights {
+        private final long roomId;
+        private final long[] words;
+        private String roomType;
+
+        RoomNights(long roomId, String roomType, int nights) {
+            this.roomId = roomId;
+            this.roomType = roomType;
+            this.words = new long[(nights + 63) >>> 6];
+        }
+
+        // Nights are half-open: [from, to)
+        boolean anyOccupied(int from, int to) {
+            if (from >= to) {
+                return false;
+            }
+
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+
+            for (int i = first; i <= last; i++) {
+                if ((words[i] & mask(i, first, last, from, to)) != 0) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        void clear() {
+            Arrays.fill(words, 0L);
+        }
+
+        void mark(int from, int to, boolean occupied) {
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+
+            for (int i = first; i <= last; i++) {
+                long mask = mask(i, first, last, from, to);
+                words[i] = occupied ? words[i] | mask : words[i] & ~mask;
+            }
+        }
+
+        private static long mask(int word, int first, int last, int from, int to) {
+            long mask = -1L;
+            if (word == first) {
+                mask &= -1L << (from & 63);
+            }
+            if (word == last) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            return mask;
+        }
+    }
+}
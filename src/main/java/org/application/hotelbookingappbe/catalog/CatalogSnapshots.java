@@ -0,0 +1,70 @@
+package org.application.hotelbookingappbe.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+    Pre-serialized catalog responses:
+    - all-rooms sayfaları ve room-types listesi JSON byte'ları (ve isteğe bağlı gzip kopyası) olarak tutulur
+    - Key, RoomCatalogCache'in generation sayacını içerir: katalog değişince yeni generation ile ilk istek snapshot'ı bir kez üretir,
+      eski generation'ın snapshot'ları bir daha okunmaz ve boyut/TTL ile düşer
+    - Aynı key için eşzamanlı istekler tek bir rebuild'i bekler (Caffeine compute)
+    - catalog.snapshot.enabled=false iken her istekte serialize edilir, gzip yapılmaz
+*/
+@Component
+public class CatalogSnapshots {
+    private static final int MAX_SNAPSHOTS = 256;
+
+    private final ObjectMapper objectMapper;
+    private final RoomCatalogCache catalogCache;
+    private final boolean enabled;
+    private final boolean gzip;
+    private final Cache<SnapshotKey, JsonSnapshot> snapshots;
+
+    public CatalogSnapshots(ObjectMapper objectMapper,
+                            RoomCatalogCache catalogCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+                            @Value("${catalog.snapshot.gzip:true}") boolean gzip,
+                            @Value("${catalog.cache.ttl:PT10M}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.catalogCache = catalogCache;
+        this.enabled = enabled;
+        this.gzip = gzip;
+        this.snapshots = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(MAX_SNAPSHOTS)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<SnapshotKey, JsonSnapshot>build(), "catalog-snapshots");
+    }
+
+    // The generation is read before the body is loaded, a change during the load moves readers to a new key
+    public JsonSnapshot get(String name, String cursor, int size, Supplier<?> body) {
+        if (!enabled) {
+            return JsonSnapshot.of(serialize(body.get()), false);
+        }
+
+        SnapshotKey key = new SnapshotKey(catalogCache.generation(), name, cursor, size);
+        return snapshots.get(key, k -> JsonSnapshot.of(serialize(body.get()), gzip));
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Catalog snapshot could not be serialized", ex);
+        }
+    }
+
+    private record SnapshotKey(long generation, String name, String cursor, int size) {
+    }
+}
@@ -0,0 +1,43 @@
+package org.application.hotelbookingappbe.catalog;
+
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized response body kept in memory, the ETag is the MD5 of the JSON bytes so it is the same on every node
+@Getter
+public class JsonSnapshot {
+    private final byte[] json;
+    private final byte[] gzip;      // null when compression is off or does not make the body smaller
+    private final String etag;
+
+    private JsonSnapshot(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = DigestUtils.md5DigestAsHex(json);
+    }
+
+    public static JsonSnapshot of(byte[] json, boolean compress) {
+        byte[] gzip = compress ? gzip(json) : null;
+        return new JsonSnapshot(json, gzip != null && gzip.length < json.length ? gzip : null);
+    }
+
+    // The compressed body is a different representation, it needs its own strong ETag
+    public String getGzipEtag() {
+        return etag + "-gzip";
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+}
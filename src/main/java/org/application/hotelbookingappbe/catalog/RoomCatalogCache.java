@@ -0,0 +1,94 @@
+package org.application.hotelbookingappbe.catalog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.RoomDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+    In-process near-cache for the room catalog:
+    - Oda (id -> RoomDto) ve all-rooms sayfaları (cursor + size) ayrı cache'lerde tutulur, room type listesi RoomTypeDictionary'dedir
+    - Her cache boyut sınırlı ve TTL'lidir, TTL başka node'lardaki değişikliklerin en geç ne zaman görüleceğini belirler
+    - Oda eklenip/güncellenip/silinince invalidate senkron çağrılır: hemen ve transaction commit'inden sonra tekrar,
+      böylece commit'ten önce okuyup cache'e eski değeri koyan istek de temizlenir
+    - Her invalidate generation sayacını artırır, CatalogSnapshots bu sayaçla versiyonlanır
+    - Hit/miss/eviction metrikleri cache.gets / cache.evictions (cache=rooms|room-pages) olarak yayınlanır
+    - catalog.cache.enabled=false ile tamamen devre dışı kalır, her çağrı doğrudan loader'a gider
+*/
+@Component
+public class RoomCatalogCache {
+    private final boolean enabled;
+    private final Cache<Long, RoomDto> rooms;
+    private final Cache<PageKey, CursorPage<RoomDto>> pages;
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoomCatalogCache(MeterRegistry meterRegistry,
+                            @Value("${catalog.cache.enabled:true}") boolean enabled,
+                            @Value("${catalog.cache.max-rooms:10000}") long maxRooms,
+                            @Value("${catalog.cache.ttl:PT10M}") Duration ttl) {
+        this.enabled = enabled;
+        this.rooms = CaffeineCacheMetrics.monitor(meterRegistry, build(maxRooms, ttl), "rooms");
+        this.pages = CaffeineCacheMetrics.monitor(meterRegistry, build(1000, ttl), "room-pages");
+    }
+
+    public RoomDto getRoom(Long roomId, Function<Long, RoomDto> loader) {
+        return enabled ? rooms.get(roomId, loader) : loader.apply(roomId);
+    }
+
+    public CursorPage<RoomDto> getPage(String cursor, int size, Supplier<CursorPage<RoomDto>> loader) {
+        return enabled ? pages.get(new PageKey(cursor, size), key -> loader.get()) : loader.get();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // A room changed: its own entry and every cached page are dropped
+    public void invalidate(Long roomId) {
+        evict(roomId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(roomId);
+                }
+            });
+        }
+    }
+
+    // The room type list changed (maybe on another node): pages carry type names, they are rebuilt
+    public void invalidatePages() {
+        evict(null);
+    }
+
+    private void evict(Long roomId) {
+        generation.incrementAndGet();
+        if (roomId != null) {
+            rooms.invalidate(roomId);
+        }
+        pages.invalidateAll();
+    }
+
+    private static <K, V> Cache<K, V> build(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private record PageKey(String cursor, int size) {
+    }
+}
@@ -0,0 +1,147 @@
+package org.application.hotelbookingappbe.catalog;
+
+import org.application.hotelbookingappbe.model.RoomType;
+import org.application.hotelbookingappbe.repository.RoomTypeRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+    In-memory room type dictionary:
+    - room_type tablosu (id, name) tamamen bellekte tutulur, search formu ve DTO mapping için DB'ye gidilmez
+    - Lookup key'i trim + upper case ile normalize edilir, "deluxe " ve "DELUXE" aynı tipe düşer. API tipin ilk girildiği
+      (trim edilmiş) ismini döner
+    - Cache'teki id ile bağlanan tipin satırı FOR SHARE ile kilitlenir, başka bir transaction'daki removeIfUnused onu
+      oda commit olmadan silemez. Snapshot'tan sonra silinmişse tip yeniden eklenir
+    - Yeni tip eklenince ya da son odası silinen tip kaldırılınca transaction bittikten sonra yeniden yüklenir
+    - Diğer node'lardaki değişiklikler periyodik refresh ile (catalog.room-types.refresh) görülür
+    - Liste değiştiyse catalog generation artırılır, room-types snapshot'ı yeniden üretilir
+*/
+@Component
+public class RoomTypeDictionary {
+    private final RoomTypeRepository roomTypeRepository;
+    private final RoomCatalogCache catalogCache;
+
+    private volatile Snapshot snapshot;     // null until the first lookup
+
+    public RoomTypeDictionary(RoomTypeRepository roomTypeRepository, RoomCatalogCache catalogCache) {
+        this.roomTypeRepository = roomTypeRepository;
+        this.catalogCache = catalogCache;
+    }
+
+    public static String normalize(String name) {
+        return name == null || name.isBlank() ? null : name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Sorted by name
+    public List<String> names() {
+        return current().names();
+    }
+
+    public Optional<Integer> idOf(String name) {
+        return Optional.ofNullable(current().idsByKey().get(normalize(name)));
+    }
+
+    // Reads the id only, so a lazy RoomType proxy is not initialized unless the type is newer than the snapshot
+    public String nameOf(RoomType roomType) {
+        if (roomType == null) {
+            return null;
+        }
+
+        String name = current().namesById().get(roomType.getId());
+        return name != null ? name : roomType.getName();
+    }
+
+    // Must run inside the room write transaction, a missing type is inserted and the dictionary reloaded afterwards
+    public RoomType resolve(String name) {
+        String key = normalize(name);
+        if (key == null) {
+            return null;
+        }
+
+        Integer id = current().idsByKey().get(key);
+        if (id != null) {
+            Optional<RoomType> locked = roomTypeRepository.findByIdForShare(id);
+            if (locked.isPresent()) {
+                return locked.get();
+            }
+        }
+
+        // New type, or its last room was removed (and the row deleted) after the snapshot was loaded.
+        // A duplicate INSERT IGNORE also share-locks the existing row, so the lookup below always finds it
+        roomTypeRepository.insertIfAbsent(name.trim(), key);
+        reloadAfterCompletion();
+        return roomTypeRepository.findByNameKeyForShare(key).orElseThrow();
+    }
+
+    // Must run inside the room write transaction, after the room that used the type was changed or deleted
+    public void removeIfUnused(RoomType roomType) {
+        if (roomType != null && roomTypeRepository.deleteIfUnused(roomType.getId()) > 0) {
+            reloadAfterCompletion();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.room-types.refresh:PT5M}")
+    public void reload() {
+        Snapshot previous = snapshot;
+        Snapshot reloaded = load();
+        snapshot = reloaded;
+
+        if (previous != null && !previous.names().equals(reloaded.names())) {
+            catalogCache.invalidatePages();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private void reloadAfterCompletion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+
+        // After commit the new rows are visible, after rollback a type inserted by this transaction disappears again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reload();
+            }
+        });
+    }
+
+    private Snapshot load() {
+        List<RoomType> roomTypes = roomTypeRepository.findAll();
+        Map<String, Integer> idsByKey = new HashMap<>();
+        Map<Integer, String> namesById = new HashMap<>();
+
+        for (RoomType roomType : roomTypes) {
+            // Keyed from the name: rows written before name_key existed are found the same way
+            idsByKey.put(normalize(roomType.getName()), roomType.getId());
+            namesById.put(roomType.getId(), roomType.getName());
+        }
+
+        List<String> names = roomTypes.stream()
+                .map(RoomType::getName)
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .toList();
+
+        return new Snapshot(names, Map.copyOf(idsByKey), Map.copyOf(namesById));
+    }
+
+    private record Snapshot(List<String> names, Map<String, Integer> idsByKey, Map<Integer, String> namesById) {
+    }
+}
@@ -0,0 +1,69 @@
+package org.application.hotelbookingappbe.catalog;
+
+import org.application.hotelbookingappbe.migration.SchemaMigrations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/*
+    One-time room type migration on startup:
+    - room.room_type string kolonu yoksa (yeni kurulum ya da migration daha önce bitmiş) hiçbir şey yapmaz
+    - Farklı isimler normalize edilmiş key başına bir kez (trim edilmiş ilk haliyle) room_type tablosuna yazılır,
+      room.room_type_id key üzerinden bu id'lerle doldurulur
+    - name_key kolonundan önce yazılmış room_type satırlarının key'i her startup'ta (eksikse) doldurulur
+    - Eski index ve kolon drop edilir (ddl-auto=update kolon silmez)
+    - Web server istek almaya başlamadan önce, schema_migration marker'ı ile aynı transaction'da çalışır: canlı istekler
+      tipsiz oda ya da boş dictionary görmez, aynı anda başlayan node'lar marker'da sıraya girer
+*/
+@Component
+public class RoomTypeMigration implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RoomTypeMigration.class);
+    private static final String LINK_ROOMS = "room_type_links";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaMigrations schemaMigrations;
+    private final RoomTypeDictionary roomTypes;
+
+    public RoomTypeMigration(JdbcTemplate jdbcTemplate, SchemaMigrations schemaMigrations, RoomTypeDictionary roomTypes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaMigrations = schemaMigrations;
+        this.roomTypes = roomTypes;
+    }
+
+    // Runs after every bean is created and before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Same normalization as RoomTypeDictionary.normalize
+        jdbcTemplate.update("UPDATE room_type SET name_key = UPPER(TRIM(name)) WHERE name_key IS NULL");
+
+        if (exists("columns", "column_name", "room_type") && schemaMigrations.runOnce(LINK_ROOMS, this::linkRooms)) {
+            roomTypes.reload();
+        }
+    }
+
+    private void linkRooms() {
+        jdbcTemplate.update("INSERT IGNORE INTO room_type (name, name_key) " +
+                "SELECT MIN(TRIM(room_type)), UPPER(TRIM(room_type)) FROM room WHERE TRIM(room_type) <> '' " +
+                "GROUP BY UPPER(TRIM(room_type))");
+        int linked = jdbcTemplate.update("UPDATE room r JOIN room_type t ON t.name_key = UPPER(TRIM(r.room_type)) " +
+                "SET r.room_type_id = t.id WHERE r.room_type_id IS NULL");
+
+        // DDL last: MySQL commits the links together with the marker before dropping the column
+        if (exists("statistics", "index_name", "idx_room_type")) {
+            jdbcTemplate.execute("ALTER TABLE room DROP INDEX idx_room_type");
+        }
+        jdbcTemplate.execute("ALTER TABLE room DROP COLUMN room_type");
+
+        logger.info("Linked {} rooms to room types and dropped room.room_type", linked);
+    }
+
+    private boolean exists(String table, String column, String name) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema." + table + " " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'room' AND " + column + " = ?",
+                Integer.class, name);
+        return count != null && count > 0;
+    }
+}
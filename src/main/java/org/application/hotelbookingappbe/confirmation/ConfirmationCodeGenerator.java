@@ -0,0 +1,58 @@
+package org.application.hotelbookingappbe.confirmation;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.function.Predicate;
+
+/*
+    Booking confirmation code generator:
+    - 12 karakterlik Crockford base32 kod üretir (60 bit entropy, I/L/O/U yok -> okurken karıştırılmaz)
+    - Her thread kendi SecureRandom'ını ve entropy buffer'ını kullanır, paylaşılan SecureRandom üzerinde contention olmaz
+    - Buffer toplu doldurulur, her kod için SecureRandom'a gidilmez
+    - Kod tahmin edilemez olmalı: guest lookup endpoint'i sadece koda bakarak booking döner
+*/
+@Component
+public class ConfirmationCodeGenerator {
+    public static final int CODE_LENGTH = 12;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ThreadLocal<EntropyBuffer> buffers = ThreadLocal.withInitial(EntropyBuffer::new);
+
+    // isTaken is the collision check (an indexed point read), the unique index is the final guard
+    public String next(Predicate<String> isTaken) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String code = next();
+            if (!isTaken.test(code)) {
+                return code;
+            }
+        }
+        throw new IllegalStateException("Could not generate a unique confirmation code");
+    }
+
+    public String next() {
+        EntropyBuffer buffer = buffers.get();
+        char[] code = new char[CODE_LENGTH];
+
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            code[i] = ALPHABET[buffer.nextByte() & 31];     // 5 bits per character
+        }
+
+        return new String(code);
+    }
+
+    private static final class EntropyBuffer {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] bytes = new byte[CODE_LENGTH * 64];
+        private int position = bytes.length;
+
+        int nextByte() {
+            if (position == bytes.length) {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+            return bytes[position++];
+        }
+    }
+}
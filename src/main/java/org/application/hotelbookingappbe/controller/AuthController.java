@@ -1,15 +1,20 @@
 package org.application.hotelbookingappbe.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.application.hotelbookingappbe.model.User;
 import org.application.hotelbookingappbe.dto.LoginRequest;
 import org.application.hotelbookingappbe.dto.LoginResponse;
 import org.application.hotelbookingappbe.security.jwt.JwtUtils;
+import org.application.hotelbookingappbe.security.throttle.ClientAddressResolver;
+import org.application.hotelbookingappbe.security.throttle.LoginThrottle;
 import org.application.hotelbookingappbe.security.user.HotelUserDetails;
 import org.application.hotelbookingappbe.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,6 +24,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @Tag(name = "Auth Controller", description = "Authentication API")
 @RestController
@@ -28,6 +34,8 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final LoginThrottle loginThrottle;
+    private final ClientAddressResolver clientAddresses;
 
     @Tag(name = "Register User")
     @PostMapping("/register")
@@ -38,7 +46,16 @@ public class AuthController {
 
     @Tag(name = "Login User")
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // Throttled attempts never reach BCrypt or the user lookup
+        Optional<LoginThrottle.Rejection> rejection = loginThrottle.tryAcquire(loginRequest.getEmail(), clientAddresses.resolve(request));
+        if (rejection.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.get().retryAfterSeconds()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(rejection.get().body());
+        }
+
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getEmail(), loginRequest.getPassword()
@@ -70,4 +87,14 @@ public class AuthController {
         }
         return ResponseEntity.badRequest().body("Invalid token");
     }
+
+    @Tag(name = "Logout User Everywhere")
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutEverywhere(@RequestHeader("Authorization") String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ") && jwtUtils.invalidateAllTokens(authHeader.substring(7))) {
+            SecurityContextHolder.clearContext();
+            return ResponseEntity.ok("Logged out from all sessions");
+        }
+        return ResponseEntity.badRequest().body("Invalid token");
+    }
 }
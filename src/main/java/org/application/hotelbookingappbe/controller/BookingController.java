@@ -3,12 +3,19 @@ package org.application.hotelbookingappbe.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.application.hotelbookingappbe.dto.BookingDto;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.GroupBookingRequest;
+import org.application.hotelbookingappbe.dto.NightOccupancy;
 import org.application.hotelbookingappbe.service.BookingService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Tag(name = "Booking Controller", description = "Booking API")
@@ -24,8 +31,19 @@ public class BookingController {
     @Tag(name = "Get All Bookings")
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public ResponseEntity<List<BookingDto>> getAllBookings() {
-        return new ResponseEntity<>(bookingService.getAllBookings(), HttpStatus.OK);
+    public ResponseEntity<CursorPage<BookingDto>> getAllBookings(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(bookingService.getAllBookings(cursor, size), HttpStatus.OK);
+    }
+
+    // Streams every booking as one JSON object per line, memory use does not grow with the number of bookings
+    @Tag(name = "Export Bookings")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(bookingService::exportBookings);
     }
 
     @Tag(name = "Get Booking By Confirmation Code")
@@ -36,8 +54,10 @@ public class BookingController {
 
     @Tag(name = "Get Bookings By Email")
     @GetMapping("/email/{email}")
-    public ResponseEntity<List<BookingDto>> getBookingsByEmail(@PathVariable String email) {
-        return new ResponseEntity<>(bookingService.getBookingsByEmail(email), HttpStatus.OK);
+    public ResponseEntity<CursorPage<BookingDto>> getBookingsByEmail(@PathVariable String email,
+                                                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                                                     @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(bookingService.getBookingsByEmail(email, cursor, size), HttpStatus.OK);
     }
 
     @Tag(name = "Add Booking")
@@ -46,6 +66,22 @@ public class BookingController {
         return new ResponseEntity<>(bookingService.addBooking(roomId, bookingDto), HttpStatus.CREATED);
     }
 
+    @Tag(name = "Add Group Booking")
+    @PostMapping("/group")
+    public ResponseEntity<List<BookingDto>> addGroupBooking(@Valid @RequestBody GroupBookingRequest groupBookingRequest) {
+        return new ResponseEntity<>(bookingService.addGroupBooking(groupBookingRequest), HttpStatus.CREATED);
+    }
+
+    @Tag(name = "Get Nightly Occupancy")
+    @GetMapping("/occupancy")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<NightOccupancy>> getNightlyOccupancy(
+            @RequestParam("from") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to
+    ) {
+        return new ResponseEntity<>(bookingService.getNightlyOccupancy(from, to), HttpStatus.OK);
+    }
+
     @Tag(name = "Delete Booking")
     @DeleteMapping("/delete-booking/{bookingId}")
     public ResponseEntity<String> deleteBooking(@PathVariable Long bookingId) {
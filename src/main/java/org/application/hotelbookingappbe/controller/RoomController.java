@@ -1,8 +1,14 @@
 package org.application.hotelbookingappbe.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.application.hotelbookingappbe.catalog.JsonSnapshot;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.dto.RoomDto;
+import org.application.hotelbookingappbe.photo.PhotoMediaTypes;
+import org.application.hotelbookingappbe.photo.StoredPhoto;
 import org.application.hotelbookingappbe.service.RoomService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -10,19 +16,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.beans.PropertyEditorSupport;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Locale;
 
 @Tag(name = "Room Controller", description = "Room API")
 @RestController
 @RequestMapping("/api/rooms")
 public class RoomController {
+    // Browsers reuse the photo for a while, then revalidate with If-None-Match (cheap 304)
+    private static final CacheControl PHOTO_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10)).cachePublic();
+
     private final RoomService roomService;
 
     public RoomController(RoomService roomService) {
@@ -42,8 +53,8 @@ public class RoomController {
 
     @Tag(name = "Get Room Types")
     @GetMapping("/room-types")
-    public ResponseEntity<List<String>> getRoomTypes() {
-        return new ResponseEntity<>(roomService.getRoomTypes(), HttpStatus.OK);
+    public ResponseEntity<byte[]> getRoomTypes(WebRequest webRequest) {
+        return snapshotResponse(roomService.getRoomTypesSnapshot(), webRequest);
     }
 
     @Tag(name = "Get Room By Id")
@@ -54,33 +65,54 @@ public class RoomController {
 
     @Tag(name = "Get All Rooms")
     @GetMapping("/all-rooms")
-    public ResponseEntity<List<RoomDto>> getAllRooms() {
-        return new ResponseEntity<>(roomService.getAllRooms(), HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllRooms(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "20") int size,
+                                              WebRequest webRequest) {
+        return snapshotResponse(roomService.getAllRoomsSnapshot(cursor, size), webRequest);
     }
 
     @Tag(name = "Get Room Photo By Room Id")
     @GetMapping("/room-photo/{roomId}")
-    public ResponseEntity<byte[]> getRoomPhotoByRoomId(@PathVariable Long roomId) {
-        byte[] photo = roomService.getRoomPhotoByRoomId(roomId);
+    public ResponseEntity<Resource> getRoomPhotoByRoomId(@PathVariable Long roomId,
+                                                         @RequestParam(value = "size", required = false) Integer size,
+                                                         WebRequest webRequest) throws IOException {
+        String photoKey = roomService.getRoomPhotoKey(roomId);
+
+        if (photoKey == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        StoredPhoto photo = roomService.getPhoto(photoKey, size).orElse(null);
 
         if (photo == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_JPEG);
+        // Same ETag means same bytes: 304 is sent without reading the file
+        if (webRequest.checkNotModified(photo.getEtag())) {
+            return null;
+        }
 
-        return new ResponseEntity<>(photo, headers, HttpStatus.OK);
+        // Range requests are answered by Spring with 206 and ResourceRegion(s) read straight from the file
+        Resource body = photo.getResource();
+        return ResponseEntity.ok()
+                .eTag(photo.getEtag())
+                .cacheControl(PHOTO_CACHE_CONTROL)
+                .contentType(PhotoMediaTypes.detect(body))
+                .contentLength(body.contentLength())
+                .body(body);
     }
 
     @Tag(name = "Get Available Rooms")
     @GetMapping("/available-rooms")
-    public ResponseEntity<List<RoomDto>> getAvailableRooms(
+    public ResponseEntity<CursorPage<RoomDto>> getAvailableRooms(
             @RequestParam("checkInDate") LocalDate checkInDate,
             @RequestParam("checkOutDate") LocalDate checkOutDate,
-            @RequestParam("roomType") String roomType
+            @RequestParam("roomType") String roomType,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
     ) {
-        return new ResponseEntity<>(roomService.getAvailableRooms(checkInDate, checkOutDate, roomType), HttpStatus.OK);
+        return new ResponseEntity<>(roomService.getAvailableRooms(checkInDate, checkOutDate, roomType, cursor, size), HttpStatus.OK);
     }
 
     @Tag(name = "Update Room")
@@ -103,6 +135,70 @@ public class RoomController {
         return new ResponseEntity<>("Room deleted successfully", HttpStatus.OK);
     }
 
+    /*
+        Pre-serialized catalog response:
+        - Body, snapshot'taki JSON byte'larıdır, Jackson bu istekte çalışmaz
+        - İstemci gzip kabul ediyorsa sıkıştırılmış kopya kendi ETag'i ile yazılır (Vary: Accept-Encoding). Accept-Encoding
+          token ve q değerleriyle okunur: "gzip;q=0" gzip'i reddeder, "*" listede olmayan gzip'i de kabul eder
+        - If-None-Match eşleşirse body yazılmadan 304 döner
+    */
+    private ResponseEntity<byte[]> snapshotResponse(JsonSnapshot snapshot, WebRequest webRequest) {
+        boolean gzip = snapshot.getGzip() != null && acceptsGzip(webRequest.getHeaderValues(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        return gzip
+                ? response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip())
+                : response.body(snapshot.getJson());
+    }
+
+    private static boolean acceptsGzip(String[] acceptEncodings) {
+        if (acceptEncodings == null) {
+            return false;
+        }
+
+        Double gzip = null;
+        Double any = null;
+        for (String header : acceptEncodings) {
+            for (String token : header.split(",")) {
+                String[] parts = token.split(";");
+                String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                double quality = quality(parts);
+
+                if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                    gzip = gzip == null ? quality : Math.max(gzip, quality);
+                } else if (coding.equals("*")) {
+                    any = quality;
+                }
+            }
+        }
+
+        // An explicit gzip weight wins over the wildcard
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;       // Malformed weight: the coding is not treated as acceptable
+                }
+            }
+        }
+        return 1;
+    }
+
     @InitBinder
     public void initBinder(WebDataBinder binder) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
@@ -3,6 +3,7 @@ package org.application.hotelbookingappbe.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.model.User;
 import org.application.hotelbookingappbe.service.UserService;
 import org.springframework.http.HttpStatus;
@@ -10,7 +11,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @Tag(name = "User Controller", description = "User API")
 @RestController
@@ -22,8 +22,9 @@ public class UserController {
     @Tag(name = "Get All Users")
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
+    public ResponseEntity<CursorPage<User>> getAllUsers(@RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(userService.getAllUsers(cursor, size), HttpStatus.OK);
     }
 
     @Tag(name = "Get User By Id")
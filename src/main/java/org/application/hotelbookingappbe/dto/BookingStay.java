@@ -0,0 +1,11 @@
+package org.application.hotelbookingappbe.dto;
+
+import java.time.LocalDate;
+
+// Lightweight projection of a booking's stay (no Room / guest data is hydrated)
+public interface BookingStay {
+    Long getBookingId();
+    Long getRoomId();
+    LocalDate getCheckInDate();
+    LocalDate getCheckOutDate();
+}
@@ -0,0 +1,15 @@
+package org.application.hotelbookingappbe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Why a single item of a group booking was rejected (index is the position in GroupBookingRequest.items)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingFailure {
+    private int index;
+    private Long roomId;
+    private String reason;
+}
@@ -0,0 +1,35 @@
+package org.application.hotelbookingappbe.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingItem {
+    @NotNull(message = "Room id is required")
+    private Long roomId;
+
+    @NotNull(message = "Check-in date is required")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDate checkInDate;
+
+    @NotNull(message = "Check-out date is required")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDate checkOutDate;
+
+    @Min(value = 1, message = "Number of adults must be at least 1")
+    private Integer numOfAdults;
+
+    @PositiveOrZero(message = "Number of children value cannot be negative")
+    private Integer numOfChildren;
+}
@@ -0,0 +1,29 @@
+package org.application.hotelbookingappbe.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One guest (e.g. a tour operator) booking several rooms at once
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingRequest {
+    @NotBlank(message = "Guest name is required")
+    @Size(min = 2, max = 15, message = "Guest name must be between 2 and 15 characters long")
+    private String guestName;
+
+    @NotBlank(message = "Guest email is required")
+    @Email(message = "Invalid email format")
+    private String guestEmail;
+
+    @NotEmpty(message = "At least one room is required")
+    @Size(max = 100, message = "A group booking can contain at most 100 rooms")
+    private List<@Valid GroupBookingItem> items;
+}
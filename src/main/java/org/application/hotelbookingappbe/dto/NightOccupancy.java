@@ -0,0 +1,9 @@
+package org.application.hotelbookingappbe.dto;
+
+import java.time.LocalDate;
+
+// Reporting projection over the room_night ledger: how many rooms are sold on a given night
+public interface NightOccupancy {
+    LocalDate getNight();
+    Long getOccupiedRooms();
+}
@@ -0,0 +1,10 @@
+package org.application.hotelbookingappbe.dto;
+
+import java.time.LocalDateTime;
+
+// Room that was created, updated or whose bookings changed, read by the occupancy bitmap refresh
+public interface RoomStaysChange {
+    Long getRoomId();
+    String getRoomType();
+    LocalDateTime getStaysChangedAt();
+}
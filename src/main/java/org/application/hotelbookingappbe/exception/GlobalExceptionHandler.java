@@ -1,11 +1,13 @@
 package org.application.hotelbookingappbe.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -92,4 +94,47 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(errorObject, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErrorObject> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex, WebRequest request) {
+        ErrorObject errorObject = new ErrorObject(
+                "Uploaded file is too large",
+                request.getDescription(false),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(errorObject, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorObject> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        ErrorObject errorObject = new ErrorObject(
+                ex.getMessage(),
+                request.getDescription(false),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(errorObject, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorObject> handlePasswordHashingBusyException(PasswordHashingBusyException ex, WebRequest request) {
+        ErrorObject errorObject = new ErrorObject(
+                ex.getMessage(),
+                request.getDescription(false),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorObject);
+    }
+
+    @ExceptionHandler(GroupBookingFailedException.class)
+    public ResponseEntity<GroupBookingErrorObject> handleGroupBookingFailedException(GroupBookingFailedException ex, WebRequest request) {
+        GroupBookingErrorObject errorObject = new GroupBookingErrorObject(
+                ex.getMessage(),
+                request.getDescription(false),
+                LocalDateTime.now(),
+                ex.getFailures()
+        );
+        return new ResponseEntity<>(errorObject, HttpStatus.CONFLICT);
+    }
 }
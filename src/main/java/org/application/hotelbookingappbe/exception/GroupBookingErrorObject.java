@@ -0,0 +1,24 @@
+package org.application.hotelbookingappbe.exception;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.application.hotelbookingappbe.dto.GroupBookingFailure;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// ErrorObject plus the per-item reasons of a rejected group booking
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingErrorObject {
+    private String message;
+    private String details;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDateTime timeStamp;
+
+    private List<GroupBookingFailure> failures;
+}
@@ -0,0 +1,18 @@
+package org.application.hotelbookingappbe.exception;
+
+import org.application.hotelbookingappbe.dto.GroupBookingFailure;
+
+import java.util.List;
+
+public class GroupBookingFailedException extends RuntimeException {
+    private final List<GroupBookingFailure> failures;
+
+    public GroupBookingFailedException(String message, List<GroupBookingFailure> failures) {
+        super(message);
+        this.failures = failures;
+    }
+
+    public List<GroupBookingFailure> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,7 @@
+package org.application.hotelbookingappbe.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
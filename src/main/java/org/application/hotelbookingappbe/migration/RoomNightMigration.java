@@ -0,0 +1,67 @@
+package org.application.hotelbookingappbe.migration;
+
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/*
+    One-time room_night backfill on startup:
+    - Ledger'dan önce yapılmış booking'lerin kalan geceleri yazılır, bu booking'ler de DB seviyesindeki overlap
+      kontrolüne girer
+    - Web server istek almaya başlamadan önce, schema_migration marker'ı ile aynı transaction'da çalışır. Yarıda kalan
+      ya da başka bir node'un aynı anda başlattığı backfill atlanmış sayılmaz
+    - Satırları zaten olan booking'ler (bu backfill'in marker'sız eski sürümü ya da yeni booking'ler) atlanır
+    - Başka bir stay ile çakışan eski booking ledger dışında bırakılır ve loglanır
+*/
+@Component
+public class RoomNightMigration implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RoomNightMigration.class);
+    private static final String BACKFILL = "room_night_backfill";
+
+    private final SchemaMigrations schemaMigrations;
+    private final BookingRepository bookingRepository;
+    private final RoomNightRepository roomNightRepository;
+
+    public RoomNightMigration(SchemaMigrations schemaMigrations,
+                              BookingRepository bookingRepository,
+                              RoomNightRepository roomNightRepository) {
+        this.schemaMigrations = schemaMigrations;
+        this.bookingRepository = bookingRepository;
+        this.roomNightRepository = roomNightRepository;
+    }
+
+    // Runs after every bean is created and before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        schemaMigrations.runOnce(BACKFILL, this::backfill);
+    }
+
+    void backfill() {
+        LocalDate today = LocalDate.now();
+        int backfilled = 0;
+
+        for (BookingStay stay : bookingRepository.findStaysBetween(today, LocalDate.of(9999, 12, 31))) {
+            LocalDate firstNight = stay.getCheckInDate().isBefore(today) ? today : stay.getCheckInDate();
+            if (!firstNight.isBefore(stay.getCheckOutDate()) || roomNightRepository.existsByBookingId(stay.getBookingId())) {
+                continue;           // Legacy zero-night booking, or its nights are already in the ledger
+            }
+            try {
+                // A failed statement is rolled back on its own in MySQL, the migration transaction goes on
+                roomNightRepository.insertNights(stay.getRoomId(), stay.getBookingId(), firstNight, stay.getCheckOutDate());
+                backfilled++;
+            } catch (DuplicateKeyException ex) {
+                logger.warn("Booking {} overlaps another stay of room {}, it is left out of the room_night ledger",
+                        stay.getBookingId(), stay.getRoomId());
+            }
+        }
+
+        logger.info("Backfilled the room_night ledger for {} bookings", backfilled);
+    }
+}
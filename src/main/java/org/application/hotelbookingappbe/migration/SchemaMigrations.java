@@ -0,0 +1,42 @@
+package org.application.hotelbookingappbe.migration;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+    One-time data migrations recorded in the schema_migration table:
+    - Migration, adının marker satırıyla aynı transaction'da çalışır. Hata verirse marker da geri alınır ve sonraki
+      startup tekrar dener, yarıda kalmış bir migration "yapıldı" görünmez
+    - Aynı anda başlayan node'lar marker satırının kilidinde sıraya girer, sadece insert'i kazanan node çalıştırır,
+      diğerleri o commit olduktan sonra devam eder
+    - Migration'lar SmartInitializingSingleton'dan, web server istek almaya başlamadan önce çağrılır
+    - MySQL'de DDL transaction'ı implicit commit eder: migration içindeki DDL, marker'ı da o ana kadarki değişikliklerle
+      birlikte commit eder, bu yüzden DDL'ler veri değişikliklerinden sonra yazılır
+*/
+@Component
+public class SchemaMigrations {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaMigrations(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Returns false without running it when the migration was already applied (by this or another node)
+    public boolean runOnce(String name, Runnable migration) {
+        // DDL commits implicitly in MySQL, so the table is created outside the migration transaction
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migration (" +
+                "name VARCHAR(100) NOT NULL PRIMARY KEY, applied_at DATETIME(6) NOT NULL)");
+
+        Boolean applied = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update("INSERT IGNORE INTO schema_migration (name, applied_at) VALUES (?, NOW(6))", name) == 0) {
+                return false;
+            }
+            migration.run();
+            return true;
+        });
+        return Boolean.TRUE.equals(applied);
+    }
+}
@@ -5,15 +5,29 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
+/*
+    Revoked (logged out) token:
+    - Token'ın kendisi değil, sabit uzunlukta SHA-256 hash'i (BINARY(32)) tutulur
+    - expires_at token'ın exp claim'idir, bu andan sonra token zaten reddedildiği için satır BlacklistPurgeJob ile silinir
+    - Artan id, node'ların poll ettiği revocation sequence'tir
+*/
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(name = "blacklisted_token",
+        uniqueConstraints = @UniqueConstraint(name = "uk_blacklisted_token_hash", columnNames = "token_hash"),
+        indexes = @Index(name = "idx_blacklisted_token_expires_at", columnList = "expires_at"))
 public class BlacklistedToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true)
-    private String token;
+    @Column(name = "token_hash", columnDefinition = "binary(32)")
+    private byte[] tokenHash;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
 }
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.application.hotelbookingappbe.model.id.PooledId;
 
 import java.time.LocalDate;
 
@@ -14,9 +15,16 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(
+        indexes = {
+                @Index(name = "idx_booking_room_stay", columnList = "room_id, check_in, check_out"),
+                @Index(name = "idx_booking_guest_email", columnList = "guest_email, booking_id")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_booking_confirmation_code", columnNames = "confirmation_code")
+)
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledId(sequenceName = "booking_seq")
     private Long bookingId;
 
     @Column(name = "check_in")
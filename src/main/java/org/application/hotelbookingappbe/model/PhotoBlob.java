@@ -0,0 +1,28 @@
+package org.application.hotelbookingappbe.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+    Reference count of a stored photo:
+    - Aynı içerik (aynı SHA-256) birden fazla odada kullanılabilir, dosya tek kopya tutulur
+    - ref_count 0'a düşen satır ve dosyası PhotoLibrary tarafından row lock altında silinir
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "photo_blob")
+public class PhotoBlob {
+    @Id
+    @Column(name = "photo_key", length = 64)
+    private String photoKey;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+}
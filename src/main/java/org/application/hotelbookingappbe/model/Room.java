@@ -5,28 +5,42 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.application.hotelbookingappbe.model.id.PooledId;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Builder
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_room_type_id", columnList = "room_type_id, id"),
+        @Index(name = "idx_room_stays_changed_at", columnList = "stays_changed_at")
+})
 public class Room {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledId(sequenceName = "room_seq")
     private Long id;
 
-    private String roomType;
+    // Nullable at the DDL level only so ddl-auto can add the column to existing rows, RoomTypeMigration fills it
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id")
+    private RoomType roomType;
     private BigDecimal roomPrice;
     private Boolean isBooked = false;
 
-    @Lob
-    private byte[] photo;
+    // Content hash of the photo in the PhotoStore, the bytes are not kept in the room table
+    @Column(name = "photo_key", length = 64)
+    private String photoKey;
+
+    // DB clock time of the last insert, update, booking or cancellation, only written by bulk updates in the same
+    // transaction. Other nodes poll it to refresh their occupancy bitmap
+    @Column(name = "stays_changed_at", insertable = false, updatable = false)
+    private LocalDateTime staysChangedAt;
 
     @OneToMany(
             fetch = FetchType.LAZY,
@@ -44,8 +58,5 @@ public class Room {
         booking.setRoom(this);
 
         isBooked = true;
-
-        String confirmationCode = UUID.randomUUID().toString();
-        booking.setBookingConfirmationCode(confirmationCode);
     }
 }
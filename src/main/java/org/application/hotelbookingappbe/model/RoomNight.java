@@ -0,0 +1,48 @@
+package org.application.hotelbookingappbe.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/*
+    Room-night ledger:
+    - Bir booking'in her gecesi için bir satır tutulur, (room_id, night) unique olduğu için aynı gece iki kez satılamaz
+    - MySQL'de exclusion constraint olmadığından overlap kontrolünü DB bu primary key ile atomik olarak yapar
+    - Primary key kolon sırası (night, room_id)'dir: Hibernate embeddable alanlarını isim sırasıyla (night < roomId) yazar.
+      Gece bazlı raporlar doğrudan primary key'den okunur
+    - Oda bazlı sorgular (existsNightBetween, deleteByRoomId) idx_room_night_room (room_id, night) index'ini kullanır,
+      tüm tabloyu taramaz ve geniş aralıkları kilitlemez
+    - booking_id'ye FK konmaz: satırlar booking insert'inden önce (aynı transaction içinde) yazılır
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "room_night", indexes = {
+        @Index(name = "idx_room_night_room", columnList = "room_id, night"),
+        @Index(name = "idx_room_night_booking", columnList = "booking_id")
+})
+public class RoomNight {
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        // Declared in primary key order (night, room_id), which is the order Hibernate generates
+        @Column(name = "night")
+        private LocalDate night;
+
+        @Column(name = "room_id")
+        private Long roomId;
+    }
+}
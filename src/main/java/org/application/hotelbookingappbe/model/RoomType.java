@@ -0,0 +1,30 @@
+package org.application.hotelbookingappbe.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+    Room type dictionary:
+    - Her tip bir kez tutulur, room tablosu sadece integer id'yi (room_type_id) referans eder
+    - name ilk girildiği haliyle (trim edilmiş) API'de gösterilen isimdir
+    - name_key RoomTypeDictionary.normalize ile (trim + upper case) üretilen lookup key'idir, "deluxe " ve "DELUXE" aynı satıra düşer
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "room_type", uniqueConstraints = @UniqueConstraint(name = "uk_room_type_name_key", columnNames = "name_key"))
+public class RoomType {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 64)
+    private String name;
+
+    // Nullable at the DDL level only so ddl-auto can add the column to existing rows, RoomTypeMigration fills it
+    @Column(name = "name_key", length = 64)
+    private String nameKey;
+}
@@ -1,5 +1,6 @@
 package org.application.hotelbookingappbe.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -41,4 +42,9 @@ public class User {
             inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id")
     )
     private Collection<Role> roles = new HashSet<>();
+
+    // Embedded in every issued JWT, incrementing it revokes all of the user's tokens at once
+    @JsonIgnore
+    @Column(name = "token_epoch", nullable = false, columnDefinition = "int default 0")
+    private int tokenEpoch;
 }
@@ -0,0 +1,40 @@
+package org.application.hotelbookingappbe.model.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/*
+    Pooled (pooled-lo) id allocation:
+    - Sequence tablosundan tek bir round trip ile blockSize kadar id ayrılır, sonraki id'ler bellekten verilir
+    - Id persist anında belli olduğu için insert'ler JDBC batch'ine girebilir (IDENTITY'de bu mümkün değil)
+    - pooled-lo sadece tablodaki next_val ve sonrasını kullanır, bu yüzden blok boyutu değiştirilse de eski id'lerle çakışmaz
+    - Blok boyutu spring.jpa.properties.hotel.id.block-size ile ayarlanır
+*/
+public class PooledIdGenerator extends SequenceStyleGenerator {
+    public static final String BLOCK_SIZE_SETTING = "hotel.id.block-size";
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String sequenceName;
+
+    public PooledIdGenerator(PooledId config) {
+        this.sequenceName = config.sequenceName();
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService settings = serviceRegistry.requireService(ConfigurationService.class);
+        int blockSize = settings.getSetting(BLOCK_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_BLOCK_SIZE);
+
+        params.setProperty(SEQUENCE_PARAM, sequenceName);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package org.application.hotelbookingappbe.pagination;
+
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.exception.InvalidCursorException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+    Keyset (cursor) pagination helpers:
+    - Sıralama anahtarı primary key'dir, sayfa sorgusu "WHERE id > :afterId ORDER BY id LIMIT n" olur ve PK index'ini kullanır
+    - OFFSET kullanılmaz, milyonuncu satırdaki sayfa da ilk sayfa kadar hızlıdır
+    - Cursor client için opak bir token'dır (base64url), içeriği ileride değişebilir
+    - Bir sonraki sayfanın olup olmadığını anlamak için size + 1 satır okunur
+*/
+public final class Cursors {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String PREFIX = "id:";
+
+    private Cursors() {
+    }
+
+    public static int pageSize(int requested) {
+        return Math.min(Math.max(requested, 1), MAX_PAGE_SIZE);
+    }
+
+    // Repository limit for a page: one extra row tells whether there is a next page
+    public static Limit limit(int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    public static long afterId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new InvalidCursorException("Invalid page cursor");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {     // Also covers NumberFormatException
+            throw new InvalidCursorException("Invalid page cursor");
+        }
+    }
+
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> CursorPage<T> page(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(List.copyOf(items), encode(idOf.apply(items.get(pageSize - 1))));
+    }
+}
@@ -0,0 +1,150 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/*
+    Content-addressed photo store on local disk:
+    - Dosya yolu <root>/<ilk 2 hex>/<sha256 hex> şeklindedir, tek klasörde milyonlarca dosya birikmez
+    - Upload önce staging klasörüne stream edilir, SHA-256 kopyalama sırasında hesaplanır
+    - Aynı içerik ikinci kez yazılmaz, dosya zaten varsa staging kopyası silinir
+    - Varyantlar aynı klasörde <sha256 hex>-w<width> olarak durur
+    - Yazma önce geçici dosyaya yapılır ve atomic move ile yerine taşınır, okuyan taraf yarım dosya görmez
+*/
+@Component
+public class FilePhotoStore implements PhotoStore {
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String VARIANT_SEPARATOR = "-w";
+    private static final String STAGING_DIR = "staging";      // Same file system as the store, so commit is an atomic rename
+
+    private final Path root;
+
+    public FilePhotoStore(@Value("${photo.store.root:./data/photos}") Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StagedPhoto stage(InputStream content) throws IOException {
+        Path staging = root.resolve(STAGING_DIR);
+        Files.createDirectories(staging);
+        Path temp = Files.createTempFile(staging, "upload", ".tmp");
+
+        // Hash is computed while the bytes are copied, the upload is never held in memory
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(content, digest)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+
+        return new StagedPhoto(HexFormat.of().formatHex(digest.digest()), temp);
+    }
+
+    @Override
+    public boolean commit(StagedPhoto staged) throws IOException {
+        Path target = pathOf(staged.getKey());
+
+        if (Files.exists(target)) {
+            Files.deleteIfExists(staged.getFile());
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        Files.move(staged.getFile(), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    @Override
+    public void discard(StagedPhoto staged) {
+        try {
+            Files.deleteIfExists(staged.getFile());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<Resource> open(String key) {
+        return open(pathOf(key));
+    }
+
+    @Override
+    public void putVariant(String key, int width, byte[] content) throws IOException {
+        write(variantPathOf(key, width), content);
+    }
+
+    @Override
+    public Optional<Resource> openVariant(String key, int width) {
+        return open(variantPathOf(key, width));
+    }
+
+    @Override
+    public void delete(String key) {
+        Path original = pathOf(key);
+
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(original.getParent(), key + VARIANT_SEPARATOR + "*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+            Files.deleteIfExists(original);
+        } catch (NoSuchFileException ex) {
+            // Nothing was ever stored under this prefix
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Optional<Resource> open(Path path) {
+        // FileSystemResource reads through a FileChannel, ranges are served from the file without loading it
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    private static void write(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path variantPathOf(String key, int width) {
+        return pathOf(key).resolveSibling(key + VARIANT_SEPARATOR + width);
+    }
+
+    private Path pathOf(String key) {
+        // Keys come from the database, but never let one escape the store root
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid photo key");
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
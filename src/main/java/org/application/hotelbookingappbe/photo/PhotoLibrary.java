@@ -0,0 +1,147 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.application.hotelbookingappbe.repository.PhotoBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/*
+    Room photos with content-hash deduplication:
+    - Upload stream edilerek stage edilir, aynı içerik tekrar yüklenirse dosya yazılmaz, sadece ref_count artar
+    - Staged dosya room transaction'ı commit olduktan sonra key'ine taşınır, rollback'te silinir (sahipsiz dosya kalmaz)
+    - Referans bırakıldığında dosya hemen silinmez: commit sonrası ayrı transaction'da satır kilitlenir, ref_count hâlâ 0 ise dosya ve satır silinir
+    - acquire aynı satırın kilidini beklediği için silinmekte olan bir dosya yeni bir odaya bağlanamaz
+    - Commit sonrası silinemeyen kayıtlar (crash vb.) zamanlanmış sweep ile toplanır
+*/
+@Component
+public class PhotoLibrary {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoLibrary.class);
+
+    private final PhotoStore photoStore;
+    private final PhotoBlobRepository photoBlobRepository;
+    private final PhotoVariantPipeline photoVariants;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoLibrary(PhotoStore photoStore,
+                        PhotoBlobRepository photoBlobRepository,
+                        PhotoVariantPipeline photoVariants,
+                        TransactionTemplate transactionTemplate) {
+        this.photoStore = photoStore;
+        this.photoBlobRepository = photoBlobRepository;
+        this.photoVariants = photoVariants;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Must run inside the transaction that links the returned key to a room
+    public String acquire(InputStream content) throws IOException {
+        StagedPhoto staged = photoStore.stage(content);
+
+        try {
+            // Row lock first: a concurrent collect of the same key is either done or sees ref_count > 0 afterwards
+            photoBlobRepository.acquire(staged.getKey());
+        } catch (RuntimeException ex) {
+            photoStore.discard(staged);
+            throw ex;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        store(staged);
+                    } catch (IOException | UncheckedIOException ex) {
+                        logger.error("Photo {} is referenced but could not be stored: {}", staged.getKey(), ex.getMessage());
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    // Rolled back (or already moved): only the temporary copy is dropped
+                    photoStore.discard(staged);
+                }
+            });
+        } else {
+            try {
+                store(staged);
+            } finally {
+                photoStore.discard(staged);
+            }
+        }
+
+        return staged.getKey();
+    }
+
+    // Must run inside the transaction that unlinks the key, the file is collected after commit
+    public void release(String photoKey) {
+        if (photoKey == null || photoBlobRepository.release(photoKey) == 0) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    collect(photoKey);
+                }
+            });
+        } else {
+            collect(photoKey);
+        }
+    }
+
+    /*
+        Closest variant for the requested width:
+        - Genişliği istenen değere eşit ya da büyük olan en küçük varyant seçilir
+        - Varyant henüz üretilmediyse (ya da orijinal zaten küçükse) orijinal döner
+        - Key SHA-256 olduğu için ETag olarak kullanılır, varyantın ETag'i width ile ayrışır
+    */
+    public Optional<StoredPhoto> find(String photoKey, Integer width) {
+        OptionalInt variantWidth = photoVariants.widthFor(width);
+
+        if (variantWidth.isPresent()) {
+            Optional<Resource> variant = photoStore.openVariant(photoKey, variantWidth.getAsInt());
+            if (variant.isPresent()) {
+                return Optional.of(new StoredPhoto(photoKey + "-w" + variantWidth.getAsInt(), variant.get()));
+            }
+        }
+
+        return photoStore.open(photoKey).map(original -> new StoredPhoto(photoKey, original));
+    }
+
+    private void store(StagedPhoto staged) throws IOException {
+        if (photoStore.commit(staged)) {
+            photoVariants.submit(staged.getKey());
+        }
+    }
+
+    @Scheduled(cron = "${photo.gc-cron:0 30 3 * * *}")
+    public void sweep() {
+        photoBlobRepository.findUnreferencedKeys().forEach(this::collect);
+    }
+
+    void collect(String photoKey) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    photoBlobRepository.findUnreferencedForUpdate(photoKey).ifPresent(blob -> {
+                        photoStore.delete(photoKey);
+                        photoBlobRepository.delete(blob);
+                    }));
+        } catch (UncheckedIOException | DataAccessException ex) {
+            // Stays at ref_count 0, the next sweep retries
+            logger.warn("Photo {} could not be collected: {}", photoKey, ex.getMessage());
+        }
+    }
+}
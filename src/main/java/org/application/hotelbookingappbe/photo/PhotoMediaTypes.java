@@ -0,0 +1,54 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+    Content type detection from the first bytes of the image (magic numbers):
+    - Upload sırasında gelen Content-Type/dosya uzantısına güvenilmez, gerçek içerik okunur
+    - Sadece ilk 12 byte okunur, bilinmeyen format application/octet-stream olarak döner
+*/
+public final class PhotoMediaTypes {
+    private static final int HEADER_LENGTH = 12;
+    private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+    private PhotoMediaTypes() {
+    }
+
+    public static MediaType detect(Resource photo) throws IOException {
+        try (InputStream in = photo.getInputStream()) {
+            return detect(in.readNBytes(HEADER_LENGTH));
+        }
+    }
+
+    public static MediaType detect(byte[] header) {
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG;
+        }
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG;
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF;
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return IMAGE_WEBP;
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... magic) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/*
+    Storage for room photo bytes, kept out of the room table:
+    - Room sadece photo key'ini tutar, listeleme/booking sorguları fotoğraf byte'larını hiç okumaz
+    - Key içerik hash'idir (SHA-256 hex), aynı fotoğraf aynı key'e düşer
+    - Küçültülmüş varyantlar (width px) orijinalin yanında aynı key ile tutulur, orijinal silinince onlar da silinir
+*/
+public interface PhotoStore {
+
+    // Streams the content to a temporary location while hashing it, nothing is visible under the key yet
+    StagedPhoto stage(InputStream content) throws IOException;
+
+    // Moves staged content under its key, returns false if the same content was already stored
+    boolean commit(StagedPhoto staged) throws IOException;
+
+    // Drops the temporary copy (no-op after commit)
+    void discard(StagedPhoto staged);
+
+    // Lazy handle on the stored bytes, nothing is read until the body is written
+    Optional<Resource> open(String key);
+
+    void putVariant(String key, int width, byte[] content) throws IOException;
+
+    Optional<Resource> openVariant(String key, int width);
+
+    // Removes the original and all of its variants
+    void delete(String key);
+}
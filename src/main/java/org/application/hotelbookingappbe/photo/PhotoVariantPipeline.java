@@ -0,0 +1,174 @@
+package org.application.hotelbookingappbe.photo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Resized photo variants (thumbnail / responsive widths):
+    - Upload sonrası orijinalden her width için JPEG varyant üretilir, istek thread'i beklemez
+    - Sabit sayıda worker ve sınırlı kuyruk kullanılır, kuyruk doluysa iş düşürülür (orijinal servis edilmeye devam eder)
+    - Orijinalden geniş olmayan varyantlar üretilmez, büyütme yapılmaz
+    - Kuyruk derinliği (photo.variants.queue), işleme süresi (photo.variants.processing) ve düşen işler (photo.variants.rejected) metrik olarak yayınlanır
+*/
+@Component
+public class PhotoVariantPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoVariantPipeline.class);
+
+    private final PhotoStore photoStore;
+    private final int[] widths;
+    private final ThreadPoolExecutor executor;
+    private final Timer processingTimer;
+    private final Counter rejected;
+
+    public PhotoVariantPipeline(PhotoStore photoStore,
+                                MeterRegistry meterRegistry,
+                                @Value("${photo.variants.widths:200,600,1200}") int[] widths,
+                                @Value("${photo.variants.workers:2}") int workers,
+                                @Value("${photo.variants.queue-capacity:100}") int queueCapacity) {
+        this.photoStore = photoStore;
+        this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+
+        this.processingTimer = Timer.builder("photo.variants.processing")
+                .description("Time to decode a photo and write all of its variants")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("photo.variants.rejected")
+                .description("Uploads whose variants were skipped because the queue was full")
+                .register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.increment();
+                    logger.warn("Photo variant queue is full, variants are skipped for this upload");
+                });
+
+        Gauge.builder("photo.variants.queue", executor, pool -> pool.getQueue().size())
+                .description("Photos waiting for variant generation")
+                .register(meterRegistry);
+    }
+
+    public void submit(String key) {
+        executor.execute(() -> processingTimer.record(() -> generate(key)));
+    }
+
+    // Smallest variant at least as wide as requested, empty means the original should be served
+    public OptionalInt widthFor(Integer requestedWidth) {
+        if (requestedWidth == null) {
+            return OptionalInt.empty();
+        }
+        return Arrays.stream(widths).filter(width -> width >= requestedWidth).findFirst();
+    }
+
+    void generate(String key) {
+        try {
+            Optional<Resource> original = photoStore.open(key);
+            if (original.isEmpty()) {
+                return;
+            }
+
+            BufferedImage image;
+            try (InputStream in = original.get().getInputStream()) {
+                image = decode(in);
+            }
+            if (image == null) {
+                return;     // Not a format ImageIO can decode, only the original is served
+            }
+
+            for (int width : widths) {
+                if (width < image.getWidth()) {
+                    photoStore.putVariant(key, width, encodeJpeg(resize(image, width)));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Photo variants could not be generated for {}: {}", key, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /*
+        Large uploads are decoded subsampled:
+        - Fotoğraf en büyük varyantın en az iki katı genişlikte decode edilir, 50 MP bir fotoğraf heap'e tam açılmaz
+        - Bu genişlik resize kalitesi için yeterli, fazlası sadece bellek harcar
+    */
+    private BufferedImage decode(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, reader.getWidth(0) / (2 * widths[widths.length - 1]));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+
+        // RGB canvas: JPEG has no alpha, transparent areas become white
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
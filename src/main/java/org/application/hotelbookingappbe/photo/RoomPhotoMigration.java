@@ -0,0 +1,107 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.application.hotelbookingappbe.migration.SchemaMigrations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/*
+    One-time photo migrations on startup:
+    - Web server istek almaya başlamadan önce çalışır, acquire/release ref_count'lara migration bitmeden dokunamaz
+    - Kolon yoksa (yeni kurulum ya da migration daha önce bitmiş) hiçbir şey yapmaz
+    - Fotoğraflar küçük gruplar halinde okunur, her satır store'a yazılıp photo_key set edilir ve LOB null'lanır
+    - Tüm satırlar taşındıktan sonra kolon drop edilir (ddl-auto=update kolon silmez)
+    - ref_count'lar mevcut odaların photo_key'lerinden bir kez hesaplanır, yapıldığı schema_migration tablosuna
+      aynı transaction'da yazılır (SchemaMigrations)
+*/
+@Component
+public class RoomPhotoMigration implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RoomPhotoMigration.class);
+    private static final int BATCH_SIZE = 20;
+    private static final String REFERENCE_COUNTS = "photo_blob_ref_counts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PhotoStore photoStore;
+    private final PhotoVariantPipeline photoVariants;
+    private final SchemaMigrations schemaMigrations;
+
+    public RoomPhotoMigration(JdbcTemplate jdbcTemplate,
+                              PhotoStore photoStore,
+                              PhotoVariantPipeline photoVariants,
+                              SchemaMigrations schemaMigrations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.photoStore = photoStore;
+        this.photoVariants = photoVariants;
+        this.schemaMigrations = schemaMigrations;
+    }
+
+    // Runs after every bean is created and before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        moveLegacyColumn();
+        backfillReferenceCounts();
+    }
+
+    private void moveLegacyColumn() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'room' AND column_name = 'photo'",
+                Integer.class);
+
+        if (legacyColumns == null || legacyColumns == 0) {
+            return;
+        }
+
+        int moved = 0;
+        List<LegacyPhoto> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            for (LegacyPhoto photo : batch) {
+                String key = store(photo.content());
+                jdbcTemplate.update("UPDATE room SET photo_key = ?, photo = NULL WHERE id = ?", key, photo.roomId());
+            }
+            moved += batch.size();
+        }
+
+        jdbcTemplate.execute("ALTER TABLE room DROP COLUMN photo");
+        logger.info("Moved {} room photos to the photo store and dropped room.photo", moved);
+    }
+
+    // Rooms that got a photo before photo_blob existed: one reference per room using the key
+    private void backfillReferenceCounts() {
+        schemaMigrations.runOnce(REFERENCE_COUNTS, () -> {
+            // Rows written by an earlier version of this backfill are corrected, not duplicated
+            int written = jdbcTemplate.update("INSERT INTO photo_blob (photo_key, ref_count) " +
+                    "SELECT photo_key, COUNT(*) FROM room WHERE photo_key IS NOT NULL GROUP BY photo_key " +
+                    "ON DUPLICATE KEY UPDATE ref_count = VALUES(ref_count)");
+            logger.info("Backfilled reference counts for room photos ({} rows written)", written);
+        });
+    }
+
+    private List<LegacyPhoto> nextBatch() {
+        return jdbcTemplate.query(
+                "SELECT id, photo FROM room WHERE photo IS NOT NULL ORDER BY id LIMIT " + BATCH_SIZE,
+                (rs, rowNum) -> new LegacyPhoto(rs.getLong("id"), rs.getBytes("photo")));
+    }
+
+    private String store(byte[] content) {
+        try {
+            StagedPhoto staged = photoStore.stage(new ByteArrayInputStream(content));
+            if (photoStore.commit(staged)) {
+                photoVariants.submit(staged.getKey());
+            }
+            return staged.getKey();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record LegacyPhoto(Long roomId, byte[] content) {
+    }
+}
@@ -0,0 +1,14 @@
+package org.application.hotelbookingappbe.photo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+// Uploaded content that has been hashed but is not yet stored under its key
+@Getter
+@AllArgsConstructor
+public class StagedPhoto {
+    private final String key;
+    private final Path file;
+}
@@ -0,0 +1,13 @@
+package org.application.hotelbookingappbe.photo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+// A photo (original or variant) ready to be served, the ETag is unique per content
+@Getter
+@AllArgsConstructor
+public class StoredPhoto {
+    private final String etag;
+    private final Resource resource;
+}
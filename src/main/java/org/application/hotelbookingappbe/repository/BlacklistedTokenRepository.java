@@ -1,8 +1,20 @@
 package org.application.hotelbookingappbe.repository;
 
 import org.application.hotelbookingappbe.model.BlacklistedToken;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface BlacklistedTokenRepository extends JpaRepository<BlacklistedToken, Long> {
-    boolean existsByToken(String token);
+    // The auto-increment id is the revocation sequence polled by every node
+    List<BlacklistedToken> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Bounded batch on idx_blacklisted_token_expires_at, so one purge never holds a long table lock
+    @Modifying
+    @Query(value = "DELETE FROM blacklisted_token WHERE expires_at < :now ORDER BY expires_at LIMIT :limit", nativeQuery = true)
+    int deleteExpired(Instant now, int limit);
 }
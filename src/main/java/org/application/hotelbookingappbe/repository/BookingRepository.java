@@ -1,12 +1,59 @@
 package org.application.hotelbookingappbe.repository;
 
+import jakarta.persistence.QueryHint;
+import org.application.hotelbookingappbe.dto.BookingStay;
 import org.application.hotelbookingappbe.model.Booking;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     Optional<Booking> findByBookingConfirmationCode(String bookingConfirmationCode);
-    List<Booking> findByGuestEmail(String email);
+    boolean existsByBookingConfirmationCode(String bookingConfirmationCode);
+
+    // Keyset pages on the primary key (by email: idx_booking_guest_email), room comes in the same row
+    @Query("SELECT b FROM Booking b JOIN FETCH b.room WHERE b.bookingId > :afterId ORDER BY b.bookingId")
+    List<Booking> findPageAfter(Long afterId, Limit limit);
+
+    @Query(" SELECT b FROM Booking b JOIN FETCH b.room " +
+            " WHERE b.guestEmail = :email AND b.bookingId > :afterId ORDER BY b.bookingId")
+    List<Booking> findPageByGuestEmailAfter(String email, Long afterId, Limit limit);
+
+    // Fetch size Integer.MIN_VALUE: MySQL Connector/J streams the rows forward-only instead of buffering the whole result.
+    // The connection is busy until the stream is closed, so nothing else may be queried while iterating
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b JOIN FETCH b.room ORDER BY b.bookingId")
+    Stream<Booking> streamAllWithRoom();
+
+    @Query(" SELECT b.bookingId AS bookingId, b.room.id AS roomId, " +
+            " b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            " FROM Booking b WHERE b.room.id = :roomId")
+    List<BookingStay> findStaysByRoomId(Long roomId);
+
+    @Query(" SELECT b.bookingId AS bookingId, b.room.id AS roomId, " +
+            " b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            " FROM Booking b WHERE b.bookingId = :bookingId")
+    Optional<BookingStay> findStayByBookingId(Long bookingId);
+
+    @Query(" SELECT b.bookingId AS bookingId, b.room.id AS roomId, " +
+            " b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            " FROM Booking b WHERE b.checkOutDate > :from AND b.checkInDate < :to")
+    List<BookingStay> findStaysBetween(LocalDate from, LocalDate to);
+
+    // Served by the (room_id, check_in, check_out) index
+    @Query(" SELECT b.bookingId AS bookingId, b.room.id AS roomId, " +
+            " b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            " FROM Booking b WHERE b.room.id IN :roomIds AND b.checkOutDate > :from AND b.checkInDate < :to")
+    List<BookingStay> findStaysByRoomIdInBetween(Collection<Long> roomIds, LocalDate from, LocalDate to);
 }
@@ -0,0 +1,31 @@
+package org.application.hotelbookingappbe.repository;
+
+import jakarta.persistence.LockModeType;
+import org.application.hotelbookingappbe.model.PhotoBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+
+    // Single statement upsert: takes the row lock, so it waits for a concurrent collect of the same key
+    @Modifying
+    @Query(value = "INSERT INTO photo_blob (photo_key, ref_count) VALUES (:photoKey, 1) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    void acquire(String photoKey);
+
+    @Modifying
+    @Query("UPDATE PhotoBlob p SET p.refCount = p.refCount - 1 WHERE p.photoKey = :photoKey AND p.refCount > 0")
+    int release(String photoKey);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PhotoBlob p WHERE p.photoKey = :photoKey AND p.refCount = 0")
+    Optional<PhotoBlob> findUnreferencedForUpdate(String photoKey);
+
+    @Query("SELECT p.photoKey FROM PhotoBlob p WHERE p.refCount = 0")
+    List<String> findUnreferencedKeys();
+}
@@ -0,0 +1,16 @@
+package org.application.hotelbookingappbe.repository;
+
+import org.application.hotelbookingappbe.model.Booking;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+// JDBC fragment of RoomNightRepository (multi-row inserts are not expressible with Spring Data JPA)
+public interface RoomNightLedger {
+
+    // Throws DuplicateKeyException when any night of the stay is already sold
+    void insertNights(Long roomId, Long bookingId, LocalDate checkInDate, LocalDate checkOutDate);
+
+    // Same for a group: the bookings must already have their ids
+    void insertNights(Collection<Booking> bookings);
+}
@@ -0,0 +1,68 @@
+package org.application.hotelbookingappbe.repository;
+
+import org.application.hotelbookingappbe.model.Booking;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Spring Data picks this up as the implementation of RoomNightLedger by the "Impl" suffix
+public class RoomNightLedgerImpl implements RoomNightLedger {
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoomNightLedgerImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertNights(Long roomId, Long bookingId, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Object[]> rows = new ArrayList<>();
+        addNights(rows, roomId, bookingId, checkInDate, checkOutDate);
+        insert(rows);
+    }
+
+    @Override
+    public void insertNights(Collection<Booking> bookings) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Booking booking : bookings) {
+            addNights(rows, booking.getRoom().getId(), booking.getBookingId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+
+        // Primary key order (night, room_id): concurrent groups take the key locks in the same order
+        rows.sort(Comparator.<Object[], Date>comparing(row -> (Date) row[1]).thenComparing(row -> (Long) row[0]));
+        insert(rows);
+    }
+
+    private static void addNights(List<Object[]> rows, Long roomId, Long bookingId, LocalDate checkInDate, LocalDate checkOutDate) {
+        // No rows would mean no conflict check: the booking would be saved without reserving anything
+        if (!checkInDate.isBefore(checkOutDate)) {
+            throw new IllegalArgumentException("Booking " + bookingId + " has no nights between " + checkInDate + " and " + checkOutDate);
+        }
+
+        for (LocalDate night = checkInDate; night.isBefore(checkOutDate); night = night.plusDays(1)) {
+            rows.add(new Object[]{roomId, Date.valueOf(night), bookingId});
+        }
+    }
+
+    private void insert(List<Object[]> rows) {
+        // INSERT ... VALUES (?, ?, ?), (?, ?, ?), ... : one statement per stay (or per chunk of a group)
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("INSERT INTO room_night (room_id, night, booking_id) VALUES ");
+            Object[] args = new Object[chunk.size() * 3];
+
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                System.arraycopy(chunk.get(i), 0, args, i * 3, 3);
+            }
+
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.application.hotelbookingappbe.repository;
+
+import org.application.hotelbookingappbe.dto.NightOccupancy;
+import org.application.hotelbookingappbe.model.RoomNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RoomNightRepository extends JpaRepository<RoomNight, RoomNight.Key>, RoomNightLedger {
+
+    @Modifying
+    @Query("DELETE FROM RoomNight n WHERE n.bookingId = :bookingId")
+    int deleteByBookingId(Long bookingId);
+
+    // Lookup on idx_room_night_booking
+    boolean existsByBookingId(Long bookingId);
+
+    // Both room-scoped queries are range scans on idx_room_night_room (room_id, night)
+    @Modifying
+    @Query("DELETE FROM RoomNight n WHERE n.id.roomId = :roomId")
+    int deleteByRoomId(Long roomId);
+
+    @Query(" SELECT COUNT(n) > 0 FROM RoomNight n " +
+            " WHERE n.id.roomId = :roomId AND n.id.night >= :checkInDate AND n.id.night < :checkOutDate")
+    boolean existsNightBetween(Long roomId, LocalDate checkInDate, LocalDate checkOutDate);
+
+    // Range scan on the (night, room_id) primary key, no join with booking
+    @Query(" SELECT n.id.night AS night, COUNT(n) AS occupiedRooms FROM RoomNight n " +
+            " WHERE n.id.night >= :from AND n.id.night < :to " +
+            " GROUP BY n.id.night ORDER BY n.id.night")
+    List<NightOccupancy> countOccupiedRoomsPerNight(LocalDate from, LocalDate to);
+}
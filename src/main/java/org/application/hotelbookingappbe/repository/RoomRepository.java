@@ -1,24 +1,55 @@
 package org.application.hotelbookingappbe.repository;
 
+import org.application.hotelbookingappbe.dto.RoomDto;
+import org.application.hotelbookingappbe.dto.RoomStaysChange;
 import org.application.hotelbookingappbe.model.Room;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
-    @Query(value = "SELECT DISTINCT room_type FROM room", nativeQuery = true)
-    List<String> findDistinctRoomTypes();
+    // Anti-join on the (room_id, check_in, check_out) index, stays are half-open so checkOut == checkIn is not an overlap
+    // The type filter is the integer foreign key, the dictionary row is only joined for its name
+    @Query(" SELECT new org.application.hotelbookingappbe.dto.RoomDto(r.id, t.name, r.roomPrice) FROM Room r JOIN r.roomType t " +
+            " WHERE r.roomType.id = :roomTypeId AND r.id > :afterId " +
+            " AND NOT EXISTS (" +
+            "  SELECT 1 FROM Booking b " +
+            "  WHERE b.room = r AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate" +
+            " ) ORDER BY r.id")
+    List<RoomDto> findAvailableRoomDtos(LocalDate checkInDate, LocalDate checkOutDate, Integer roomTypeId, Long afterId, Limit limit);
 
-    @Query(" SELECT r FROM Room r " +
-            " WHERE r.roomType LIKE %:roomType% " +
-            " AND r.id NOT IN (" +
-            "  SELECT br.room.id FROM Booking br " +
-            "  WHERE ((br.checkInDate <= :checkOutDate) AND (br.checkOutDate >= :checkInDate))" +
-            ")")
-    List<Room> findBookedRoomsInDateRange(LocalDate checkInDate, LocalDate checkOutDate, String roomType);
+    @Modifying
+    @Query("UPDATE Room r SET r.isBooked = true, r.staysChangedAt = CURRENT_TIMESTAMP WHERE r.id IN :ids")
+    int markBooked(Collection<Long> ids);
 
-    List<Room> findByRoomType(String roomType);
+    @Modifying
+    @Query("UPDATE Room r SET r.staysChangedAt = CURRENT_TIMESTAMP WHERE r.id = :id")
+    int markStaysChanged(Long id);
+
+    @Query("SELECT MAX(r.staysChangedAt) FROM Room r")
+    LocalDateTime findLastStaysChange();
+
+    // Range scan on idx_room_stays_changed_at
+    @Query(" SELECT r.id AS roomId, t.name AS roomType, r.staysChangedAt AS staysChangedAt FROM Room r LEFT JOIN r.roomType t " +
+            " WHERE r.staysChangedAt >= :since")
+    List<RoomStaysChange> findStaysChangedSince(LocalDateTime since);
+
+    // Projections without the entity: no dirty checking, no bookings collection
+    @Query("SELECT new org.application.hotelbookingappbe.dto.RoomDto(r.id, t.name, r.roomPrice) FROM Room r LEFT JOIN r.roomType t")
+    List<RoomDto> findAllRoomDtos();
+
+    @Query(" SELECT new org.application.hotelbookingappbe.dto.RoomDto(r.id, t.name, r.roomPrice) FROM Room r LEFT JOIN r.roomType t " +
+            " WHERE r.id > :afterId ORDER BY r.id")
+    List<RoomDto> findRoomDtosAfter(Long afterId, Limit limit);
+
+    @Query(" SELECT new org.application.hotelbookingappbe.dto.RoomDto(r.id, t.name, r.roomPrice) FROM Room r LEFT JOIN r.roomType t " +
+            " WHERE r.id IN :ids ORDER BY r.id")
+    List<RoomDto> findRoomDtosByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,31 @@
+package org.application.hotelbookingappbe.repository;
+
+import jakarta.persistence.LockModeType;
+import org.application.hotelbookingappbe.model.RoomType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface RoomTypeRepository extends JpaRepository<RoomType, Integer> {
+
+    // FOR SHARE: deleteIfUnused of another transaction waits until the room using the type is committed
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM RoomType t WHERE t.id = :id")
+    Optional<RoomType> findByIdForShare(Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM RoomType t WHERE t.nameKey = :nameKey")
+    Optional<RoomType> findByNameKeyForShare(String nameKey);
+
+    // Two nodes adding the same new type: the unique key keeps one row (and its display name), the second insert is ignored
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO room_type (name, name_key) VALUES (:name, :nameKey)", nativeQuery = true)
+    int insertIfAbsent(String name, String nameKey);
+
+    @Modifying
+    @Query("DELETE FROM RoomType t WHERE t.id = :id AND NOT EXISTS (SELECT 1 FROM Room r WHERE r.roomType.id = :id)")
+    int deleteIfUnused(Integer id);
+}
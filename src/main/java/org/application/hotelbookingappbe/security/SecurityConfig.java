@@ -13,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -31,6 +30,7 @@ import java.util.List;
 public class SecurityConfig {
     private final HotelUserDetailsService hotelUserDetailsService;
     private final JwtAuthEntryPoint jwtAuthEntryPoint;
+    private final PasswordEncoder passwordEncoder;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -49,6 +49,8 @@ public class SecurityConfig {
                                 "/swagger-resources/**",
                                 "/webjars/**").permitAll()   // No auth required for these endpoints
                         .requestMatchers("/api/roles/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
 
@@ -64,22 +66,6 @@ public class SecurityConfig {
         return new JwtAuthFilter();
     }
 
-    /*
-        PasswordEncoder:
-        - Parolaların hashlenmesi ve karşılaştırılması için kullanılan bileşendir
-        - Password decrypt edilmez
-        - Hash tekrar üretilir ve karşılaştırılır
-
-        Neden BCrypt?
-        - Salt otomatik
-        - Adaptive
-        - Brute-force resistant
-    */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     /*
         DaoAuthenticationProvider:
         - Spring'in default provider'ıdır
@@ -91,12 +77,14 @@ public class SecurityConfig {
         - DB’den UserDetails döner
         - Girilen password → PasswordEncoder.matches()
         - Başarılıysa Authentication üretilir
+        - Hash'in cost'u eskiyse parola yeni cost ile hashlenip UserDetailsPasswordService ile kaydedilir
     */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(hotelUserDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);     // BCrypt on the bounded hashing pool
+        authenticationProvider.setUserDetailsPasswordService(hotelUserDetailsService);
         return authenticationProvider;
     }
 
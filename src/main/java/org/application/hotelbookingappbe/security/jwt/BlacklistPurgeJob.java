@@ -0,0 +1,50 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/*
+    Expired blacklist rows cleanup:
+    - exp'i geçmiş token imza kontrolünde zaten reddedilir, satırı tutmanın anlamı yoktur
+    - Silme sabit boyutlu batch'ler halinde, her batch ayrı transaction'da yapılır
+    - Tablo ve index'leri sadece hâlâ geçerli olan revoke edilmiş token'lar kadar büyür
+*/
+@Component
+public class BlacklistPurgeJob {
+    private static final Logger logger = LoggerFactory.getLogger(BlacklistPurgeJob.class);
+
+    private final BlacklistedTokenRepository blacklistedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BlacklistPurgeJob(BlacklistedTokenRepository blacklistedTokenRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${jwt.revocation.purge-batch-size:1000}") int batchSize) {
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT15M}", initialDelayString = "${jwt.revocation.purge-interval:PT15M}")
+    public void purge() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int deleted;
+
+        do {
+            deleted = transactionTemplate.execute(status -> blacklistedTokenRepository.deleteExpired(now, batchSize));
+            purged += deleted;
+        } while (deleted == batchSize);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired blacklisted tokens", purged);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+import org.application.hotelbookingappbe.migration.SchemaMigrations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/*
+    One-time blacklisted_token migration on startup:
+    - blacklisted_token.token kolonu yoksa (yeni kurulum ya da migration daha önce bitmiş) hiçbir şey yapmaz
+    - Süresi dolmamış eski satırlar hash + exp ile yeni satır olarak yazılır, yeni id'ler poll ile tüm node'lara ulaşır
+    - Süresi dolmuş ya da geçersiz token'lar sadece silinir
+    - token kolonu (ve unique index'i) drop edilir (ddl-auto=update kolon silmez)
+    - RevokedTokens ilk yüklemeden önce bunu çağırır (web server başlamadan önce): deploy'dan önce logout edilmiş
+      token'lar hiçbir an tekrar kabul edilmez
+    - Dönüşüm schema_migration marker'ı ile aynı transaction'da çalışır, aynı anda başlayan node'lar marker'da sıraya girer
+*/
+@Component
+public class BlacklistedTokenMigration {
+    private static final Logger logger = LoggerFactory.getLogger(BlacklistedTokenMigration.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String HASH_TOKENS = "blacklisted_token_hashes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaMigrations schemaMigrations;
+    private final JwtVerifier jwtVerifier;
+
+    public BlacklistedTokenMigration(JdbcTemplate jdbcTemplate, SchemaMigrations schemaMigrations, JwtVerifier jwtVerifier) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaMigrations = schemaMigrations;
+        this.jwtVerifier = jwtVerifier;
+    }
+
+    public void migrate() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'blacklisted_token' AND column_name = 'token'",
+                Integer.class);
+        if (count != null && count > 0) {
+            schemaMigrations.runOnce(HASH_TOKENS, this::convertAll);
+        }
+    }
+
+    private void convertAll() {
+        int converted = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(
+                    "SELECT id, token FROM blacklisted_token WHERE token IS NOT NULL ORDER BY id LIMIT " + BATCH_SIZE);
+            for (Map<String, Object> row : rows) {
+                if (convert((String) row.get("token"))) {
+                    converted++;
+                }
+                jdbcTemplate.update("DELETE FROM blacklisted_token WHERE id = ?", row.get("id"));
+            }
+        } while (rows.size() == BATCH_SIZE);
+
+        // DDL last: MySQL commits the converted rows together with the marker before dropping the column
+        jdbcTemplate.execute("ALTER TABLE blacklisted_token DROP COLUMN token");
+
+        logger.info("Converted {} blacklisted tokens to hashes and dropped blacklisted_token.token", converted);
+    }
+
+    private boolean convert(String token) {
+        String tokenHash = TokenHashes.sha256Hex(token);
+        try {
+            VerifiedToken verified = jwtVerifier.verify(token, tokenHash);
+            if (verified.getExpiresAt() == null) {
+                return false;
+            }
+            jdbcTemplate.update("INSERT IGNORE INTO blacklisted_token (token_hash, expires_at) VALUES (UNHEX(?), ?)",
+                    tokenHash, Timestamp.from(verified.getExpiresAt()));
+            return true;
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Expired or invalid: already rejected by the verifier, the row is simply dropped
+            return false;
+        }
+    }
+}
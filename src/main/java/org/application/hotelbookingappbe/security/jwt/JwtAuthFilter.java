@@ -4,12 +4,16 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.application.hotelbookingappbe.security.user.HotelUserDetails;
 import org.application.hotelbookingappbe.security.user.HotelUserDetailsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,6 +21,8 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 // Class that handles JWT authentication for incoming requests
 /*
@@ -25,6 +31,8 @@ import java.io.IOException;
     - Validate et
     - Blacklist kontrolü yap
     - SecurityContextHolder doldur
+    - jwt.stateless-principal=true ise principal token'daki id/roles claim'lerinden kurulur, istek başına DB'ye gidilmez
+      (rol değişiklikleri token yenilenene kadar yansımaz)
 */
 public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
@@ -33,6 +41,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private HotelUserDetailsService userDetailsService;
 
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
 
     // Method belongs to OncePerRequestFilter class that is executed once per request
@@ -40,12 +51,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
+            Optional<VerifiedToken> verified = jwt == null ? Optional.empty() : jwtUtils.verify(jwt);     // JWT token validation, parsed once
 
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {            // JWT token validation
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
+            if (verified.isPresent()) {
+                String username = verified.get().getUsername();
 
                 try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = principalOf(verified.get());
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities()
                     );
@@ -66,6 +78,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Tokens without the id claim (issued before it existed) still go through the database
+    private UserDetails principalOf(VerifiedToken token) {
+        if (!statelessPrincipal || token.getUserId() == null) {
+            return userDetailsService.loadUserByUsername(token.getUsername());
+        }
+
+        List<GrantedAuthority> authorities = token.getRoles().stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+        return new HotelUserDetails(token.getUserId(), token.getUsername(), null, authorities);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
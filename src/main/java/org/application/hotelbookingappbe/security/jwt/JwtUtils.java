@@ -1,8 +1,6 @@
 package org.application.hotelbookingappbe.security.jwt;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import lombok.RequiredArgsConstructor;
 import org.application.hotelbookingappbe.model.BlacklistedToken;
 import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
@@ -14,18 +12,20 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
     private final BlacklistedTokenRepository blackListedTokenRepository;
-
-    @Value("${jwt.secret}")
-    private String secret;                  // Need for JWT token generation
+    private final JwtVerifier jwtVerifier;  // Holds the signing key, verifies and caches parsed tokens
+    private final RevokedTokens revokedTokens;
+    private final TokenEpochs tokenEpochs;
 
     @Value("${jwt.expirationTimeMs}")
     private int expirationTimeMs;           // Token expiration time in milliseconds (1 day)
@@ -39,31 +39,34 @@ public class JwtUtils {
                 .setSubject(userPrincipal.getUsername())                                 // Adding username to the "subject" part of the JWT
                 .claim("id", userPrincipal.getId())                                      // Adding user ID to the JWT
                 .claim("roles", roles)                                                   // Adding user roles to the JWT
+                .claim("epoch", tokenEpochs.latest(userPrincipal.getId()))               // Adding the user's token epoch (read from the DB) to the JWT
                 .setIssuedAt(new Date(System.currentTimeMillis()))                       // Setting the token's creation time
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTimeMs))  // Setting the token's expiration time
-                .signWith(signingKey(), SignatureAlgorithm.HS256)                        // Signing key and algorithm
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)            // Signing key and algorithm
                 .compact();
     }
 
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return jwtVerifier.verify(token).getUsername();
     }
 
     public Boolean validateJwtToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    // Single verification per request: in-memory revocation check, the (cached) signature check, then the user's token epoch
+    public Optional<VerifiedToken> verify(String token) {
         try {
-            if (blackListedTokenRepository.existsByToken(token)) {
-                return false;
+            String tokenHash = TokenHashes.sha256Hex(token);
+            if (revokedTokens.isRevoked(tokenHash)) {
+                return Optional.empty();
             }
-            Jwts.parserBuilder()
-                    .setSigningKey(signingKey())
-                    .build()
-                    .parse(token);
-            return true;
+
+            VerifiedToken verified = jwtVerifier.verify(token, tokenHash);
+            if (verified.getUserId() != null && verified.getEpoch() != tokenEpochs.current(verified.getUserId())) {
+                return Optional.empty();
+            }
+            return Optional.of(verified);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -75,18 +78,37 @@ public class JwtUtils {
         } catch (Exception e) {
             logger.error("JWT token is invalid: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
     }
 
-    // Logout
+    // Logout: only the token's hash and exp are stored, the row is purged once the token would have expired anyway
     public void invalidateToken(String token) {
-        BlacklistedToken blacklistedToken = new BlacklistedToken();
-        blacklistedToken.setToken(token);
-        blackListedTokenRepository.save(blacklistedToken);
+        String tokenHash = TokenHashes.sha256Hex(token);
+        if (revokedTokens.isRevoked(tokenHash)) {
+            return;
+        }
+
+        Instant expiresAt;
+        try {
+            expiresAt = jwtVerifier.verify(token, tokenHash).getExpiresAt();
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Invalidated token is already unusable: {}", e.getMessage());
+            return;
+        }
+        if (expiresAt == null) {
+            expiresAt = Instant.now().plusMillis(expirationTimeMs);
+        }
+
+        blackListedTokenRepository.save(new BlacklistedToken(null, HexFormat.of().parseHex(tokenHash), expiresAt));
+
+        // Rejected on this node right away, other nodes pick the row up with their next poll
+        revokedTokens.revoke(tokenHash, expiresAt);
     }
 
-    private SecretKey signingKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);   // Decode the secret key from Base64
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Log out everywhere: bumping the user's epoch rejects every token issued so far, no per-token rows
+    public boolean invalidateAllTokens(String token) {
+        Optional<Long> userId = verify(token).map(VerifiedToken::getUserId);
+        userId.ifPresent(tokenEpochs::bump);
+        return userId.isPresent();
     }
 }
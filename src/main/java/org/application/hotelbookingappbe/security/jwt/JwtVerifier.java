@@ -0,0 +1,104 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/*
+    JWT signature verification:
+    - HMAC key ve JwtParser bir kez oluşturulur, parser immutable ve thread-safe'tir
+    - Doğrulanan token'ın claim'leri SHA-256 hash'i ile bounded cache'e konur (ham token heap'te tutulmaz), entry token'ın exp anında düşer
+    - Aynı token'la gelen sonraki isteklerde HMAC ve JSON parse yapılmaz
+    - Revocation (blacklist) burada değil, her istekte JwtUtils'te kontrol edilir
+    - Hit/miss/eviction metrikleri cache.gets / cache.evictions (cache=jwt-verified) olarak yayınlanır
+*/
+@Component
+public class JwtVerifier {
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verified;
+
+    public JwtVerifier(@Value("${jwt.secret}") String secret,
+                       @Value("${jwt.verified-cache.max-entries:10000}") long maxEntries,
+                       MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verified = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .<String, VerifiedToken>build(), "jwt-verified");
+    }
+
+    public SecretKey signingKey() {
+        return signingKey;
+    }
+
+    public VerifiedToken verify(String token) {
+        return verify(token, TokenHashes.sha256Hex(token));
+    }
+
+    // Throws the parser's JwtException / IllegalArgumentException when the token is invalid, nothing is cached then
+    public VerifiedToken verify(String token, String tokenHash) {
+        VerifiedToken cached = verified.getIfPresent(tokenHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken parsed = parse(token);
+        // Tokens without an expiry are verified every time instead of living in the cache forever
+        if (parsed.getExpiresAt() != null) {
+            verified.put(tokenHash, parsed);
+        }
+        return parsed;
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        List<?> roles = claims.get("roles", List.class);
+        Integer epoch = claims.get("epoch", Integer.class);
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                roles == null ? List.of() : roles.stream().map(String::valueOf).toList(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                epoch == null ? 0 : epoch
+        );
+    }
+
+    // Each entry lives until the token's own exp claim, reads and re-puts do not extend it
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
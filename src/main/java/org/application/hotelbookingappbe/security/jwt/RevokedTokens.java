@@ -0,0 +1,102 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import org.application.hotelbookingappbe.model.BlacklistedToken;
+import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    In-memory revocation set (logout edilmiş token'lar):
+    - Hot path'te önce Bloom filter bakılır, "yok" cevabı kesindir ve DB'ye hiç gidilmez
+    - Filtre "olabilir" derse token hash -> exp map'i kesin cevabı verir
+    - Web server başlamadan önce blacklisted_token tablosundan yüklenir, invalidateToken ile anında güncellenir. Yüklemeden
+      önce eski (hash'siz) satırlar BlacklistedTokenMigration ile dönüştürülür
+    - Diğer node'ların logout'ları artan id (revocation sequence) poll edilerek alınır, geç commit olan satırlar için son
+      REPLAY_WINDOW id tekrar okunur
+    - Süresi dolan token'lar zaten reddedildiği için set'ten çıkarılır ve filtre yeniden kurulur (DB'deki satırlar
+      BlacklistPurgeJob ile silinir)
+*/
+@Component
+public class RevokedTokens implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokens.class);
+    private static final int PAGE_SIZE = 500;
+    private static final long REPLAY_WINDOW = 100;
+
+    private final BlacklistedTokenRepository blacklistedTokenRepository;
+    private final BlacklistedTokenMigration legacyTokens;
+    private final int expectedTokens;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();    // Token hash -> token expiry
+    private volatile TokenBloomFilter bloomFilter;
+    private long lastSeenId;                                                    // Guarded by this
+
+    public RevokedTokens(BlacklistedTokenRepository blacklistedTokenRepository,
+                         BlacklistedTokenMigration legacyTokens,
+                         @Value("${jwt.revocation.expected-tokens:100000}") int expectedTokens) {
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.legacyTokens = legacyTokens;
+        this.expectedTokens = expectedTokens;
+        this.bloomFilter = new TokenBloomFilter(expectedTokens);
+    }
+
+    public boolean isRevoked(String tokenHash) {
+        return bloomFilter.mightContain(tokenHash) && revoked.containsKey(tokenHash);
+    }
+
+    public synchronized void revoke(String tokenHash, Instant expiresAt) {
+        revoked.put(tokenHash, expiresAt);
+        bloomFilter.add(tokenHash);
+    }
+
+    // Runs after every bean is created and before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Legacy rows only have the token: converted first so the initial load already contains them
+        legacyTokens.migrate();
+        poll();
+        logger.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval:PT5S}", initialDelayString = "${jwt.revocation.poll-interval:PT5S}")
+    public synchronized void poll() {
+        long afterId = Math.max(0, lastSeenId - REPLAY_WINDOW);
+        Instant now = Instant.now();
+        List<BlacklistedToken> page;
+
+        do {
+            page = blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(PAGE_SIZE));
+            for (BlacklistedToken row : page) {
+                // Legacy rows without a hash are skipped, BlacklistedTokenMigration rewrites them under a new id before the first load
+                if (row.getTokenHash() != null && row.getExpiresAt() != null && row.getExpiresAt().isAfter(now)) {
+                    revoke(HexFormat.of().formatHex(row.getTokenHash()), row.getExpiresAt());
+                }
+                afterId = row.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        lastSeenId = Math.max(lastSeenId, afterId);
+        pruneExpired();
+    }
+
+    private void pruneExpired() {
+        Instant now = Instant.now();
+        if (!revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now))) {
+            return;
+        }
+
+        TokenBloomFilter rebuilt = new TokenBloomFilter(Math.max(expectedTokens, revoked.size() * 2));
+        revoked.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,47 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Bloom filter over token hashes (~%1 false positive at the expected size):
+    - Girdi zaten SHA-256 olduğu için ayrıca hash hesaplanmaz, ilk iki 64-bit parça double hashing için kullanılır
+    - mightContain lock-free'dir, add nadirdir (logout) ve bit'leri CAS ile set eder
+    - Silme yoktur, süresi dolan token'lar çıkınca RevokedTokens filtreyi yeniden kurar
+*/
+final class TokenBloomFilter {
+    private static final int BITS_PER_TOKEN = 10;
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+    private final long bits;
+
+    TokenBloomFilter(int expectedTokens) {
+        int wordCount = (int) Math.max(1, ((long) Math.max(1, expectedTokens) * BITS_PER_TOKEN + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount << 6;
+    }
+
+    void add(String tokenHash) {
+        long h1 = Long.parseUnsignedLong(tokenHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(tokenHash, 16, 32, 16);
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    boolean mightContain(String tokenHash) {
+        long h1 = Long.parseUnsignedLong(tokenHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(tokenHash, 16, 32, 16);
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
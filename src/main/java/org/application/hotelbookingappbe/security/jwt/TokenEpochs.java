@@ -0,0 +1,86 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.transaction.Transactional;
+import org.application.hotelbookingappbe.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/*
+    Per-user token epoch ("log out everywhere"):
+    - Her JWT, kullanıcının o anki users.token_epoch değerini "epoch" claim'i olarak taşır
+    - Epoch artırılınca kullanıcının tüm token'ları tek UPDATE ile geçersiz olur, token başına blacklist satırı yazılmaz
+    - İstek yolunda kontrol bellekteki userId -> epoch map'inden yapılır, yoksa tek kolonluk sorguyla yüklenir
+    - Token üretilirken epoch cache'ten değil DB'den okunur, başka node'daki bump'tan sonra eski epoch'lu token basılmaz
+    - Bu node'daki bump anında (ve commit'ten sonra tekrar) geçerli olur, diğer node'lar en geç TTL sonra görür
+    - Hit/miss/eviction metrikleri cache.gets / cache.evictions (cache=token-epochs) olarak yayınlanır
+*/
+@Component
+public class TokenEpochs {
+    // No token carries it: every token of a deleted user is rejected
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> epochs;
+
+    public TokenEpochs(UserRepository userRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${jwt.epoch.max-entries:100000}") long maxEntries,
+                       @Value("${jwt.epoch.ttl:PT30S}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.epochs = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<Long, Integer>build(), "token-epochs");
+    }
+
+    public int current(Long userId) {
+        return epochs.get(userId, id -> userRepository.findTokenEpochById(id).orElse(UNKNOWN_USER));
+    }
+
+    // For a token being issued. Epochs only grow: a cached entry is raised to the value read, never lowered
+    public int latest(Long userId) {
+        int epoch = userRepository.findTokenEpochById(userId).orElse(UNKNOWN_USER);
+        epochs.asMap().computeIfPresent(userId, (id, cached) -> Math.max(cached, epoch));
+        return epoch;
+    }
+
+    @Transactional
+    public void bump(Long userId) {
+        bump(List.of(userId));
+    }
+
+    // Revokes every outstanding token of these users
+    @Transactional
+    public void bump(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userRepository.incrementTokenEpochs(userIds);
+        invalidate(userIds);
+    }
+
+    public void invalidate(Collection<Long> userIds) {
+        List<Long> keys = List.copyOf(userIds);
+        epochs.invalidateAll(keys);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    epochs.invalidateAll(keys);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.application.hotelbookingappbe.security.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+// Claims of a token whose signature and expiry were checked, parsed once and shared by every request carrying it
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final String username;
+    private final Long userId;
+    private final List<String> roles;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final int epoch;            // Tokens issued before the epoch claim existed count as 0
+}
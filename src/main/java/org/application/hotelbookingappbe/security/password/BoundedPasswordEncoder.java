@@ -0,0 +1,139 @@
+package org.application.hotelbookingappbe.security.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.application.hotelbookingappbe.exception.PasswordHashingBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    PasswordEncoder:
+    - Parolaların hashlenmesi ve karşılaştırılması için kullanılan bileşendir
+    - Password decrypt edilmez
+    - Hash tekrar üretilir ve karşılaştırılır
+
+    Neden BCrypt?
+    - Salt otomatik
+    - Adaptive
+    - Brute-force resistant
+
+    Bounded execution:
+    - BCrypt bilerek CPU-pahalıdır, encode/matches Tomcat thread'inde değil çekirdek sayısı kadar worker'lı ayrı pool'da çalışır
+    - Kuyruk sınırlıdır, doluysa ya da iş max-wait içinde bitmezse PasswordHashingBusyException (503 + Retry-After) atılır,
+      login patlaması katalog ve booking isteklerinin CPU'sunu tüketmez
+    - Cost factor (security.password.bcrypt-strength) değişince upgradeEncoding true döner, DaoAuthenticationProvider
+      başarılı login'de parolayı yeni cost ile tekrar hashler (HotelUserDetailsService.updatePassword)
+    - Hash süresi (security.password.hashing, operation=encode|matches), kuyruk derinliği (security.password.queue) ve
+      reddedilen işler (security.password.rejected) metrik olarak yayınlanır
+*/
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(MeterRegistry meterRegistry,
+                                  @Value("${security.password.bcrypt-strength:10}") int strength,
+                                  @Value("${security.password.workers:0}") int workers,
+                                  @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${security.password.max-wait:PT2S}") Duration maxWait) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Math.max(1, maxWait.toSeconds());
+
+        // 0 means one worker per core
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("security.password.hashing")
+                .description("Time spent hashing or checking a password on the hashing pool")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("security.password.hashing")
+                .description("Time spent hashing or checking a password on the hashing pool")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("security.password.rejected")
+                .description("Password hashing requests refused because the pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("security.password.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashing requests waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.record(() -> bcrypt.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> bcrypt.matches(rawPassword, encodedPassword)));
+    }
+
+    // Only parses the stored hash's cost, cheap enough for the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many login attempts in progress, please retry", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many login attempts in progress, please retry", retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.application.hotelbookingappbe.security.throttle;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+    Login throttle'ın adres başına limiti için client IP'si:
+    - Trusted proxy yoksa (varsayılan) ya da istek trusted olmayan bir adresten geliyorsa TCP peer adresi kullanılır,
+      client'ın gönderdiği X-Forwarded-For'a güvenilmez
+    - İstek trusted bir proxy'den geliyorsa X-Forwarded-For sağdan sola okunur, trusted proxy olmayan ilk adres client'tır
+      (soldaki girdiler client tarafından uydurulabilir, sağdakileri kendi proxy'lerimiz ekler)
+    - Proxy'ler IP ya da CIDR olarak verilir (security.client-address.trusted-proxies)
+*/
+@Component
+public class ClientAddressResolver {
+    private final List<IpAddressMatcher> trustedProxies;
+    private final String forwardedHeader;
+
+    public ClientAddressResolver(@Value("${security.client-address.trusted-proxies:}") List<String> trustedProxies,
+                                 @Value("${security.client-address.forwarded-header:X-Forwarded-For}") String forwardedHeader) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        this.forwardedHeader = forwardedHeader;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String peer = request.getRemoteAddr();
+        if (!isTrusted(peer)) {
+            return peer;
+        }
+
+        // Several header lines are one list in order, each line may hold a comma separated list
+        List<String> hops = new ArrayList<>();
+        for (String line : Collections.list(request.getHeaders(forwardedHeader))) {
+            for (String hop : line.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+
+        String client = peer;
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            client = hops.get(i);
+            if (!isTrusted(client)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrusted(String address) {
+        if (address == null) {
+            return false;
+        }
+
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException ex) {
+                // Not an IP literal (e.g. "unknown" or a host name): never a trusted proxy
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package org.application.hotelbookingappbe.security.throttle;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Login throttling (per email and per client IP), checked before authenticationManager.authenticate:
+    - Her anahtar (email / IP) seed'li hash ile sabit boyutlu AtomicLongArray'de bir slota düşer, map ve lock yoktur
+    - Her slot bir token bucket'tır, GCRA biçiminde tek long (theoretical arrival time) olarak tutulur ve CAS ile güncellenir
+    - Boşta kalan bucket'ın zamanı geçmiş olur, yani doludur; ayrı bir expiry/sweep gerekmez ve bellek sabittir
+    - Reddedilen istek BCrypt ve findByEmail'e hiç ulaşmaz, 429 body'si başlangıçta bir kez serialize edilir
+    - Reddedilen denemeler security.login_throttle.rejected (key=email|ip) olarak yayınlanır
+*/
+@Component
+public class LoginThrottle {
+    private final Limiter byEmail;
+    private final Limiter byAddress;
+    private final boolean enabled;
+
+    public LoginThrottle(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${security.login-throttle.slots:65536}") int slots,
+                         @Value("${security.login-throttle.email.capacity:5}") int emailCapacity,
+                         @Value("${security.login-throttle.email.per-minute:5}") int emailPerMinute,
+                         @Value("${security.login-throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${security.login-throttle.ip.per-minute:60}") int ipPerMinute) throws JsonProcessingException {
+        this.enabled = enabled;
+        this.byEmail = new Limiter("email", slots, emailCapacity, emailPerMinute, meterRegistry,
+                objectMapper.writeValueAsBytes(Map.of("message", "Too many login attempts for this account, please retry later")));
+        this.byAddress = new Limiter("ip", slots, ipCapacity, ipPerMinute, meterRegistry,
+                objectMapper.writeValueAsBytes(Map.of("message", "Too many login attempts from this address, please retry later")));
+    }
+
+    // Empty when the attempt may go on to authentication
+    public Optional<Rejection> tryAcquire(String email, String clientAddress) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        Optional<Rejection> rejection = byAddress.tryAcquire(clientAddress == null ? "" : clientAddress, now);
+        if (rejection.isPresent()) {
+            return rejection;
+        }
+        return byEmail.tryAcquire(email == null ? "" : email.trim().toLowerCase(Locale.ROOT), now);
+    }
+
+    public record Rejection(byte[] body, long retryAfterSeconds) {
+    }
+
+    private static final class Limiter {
+        private final AtomicLongArray slots;
+        private final long seed = new SecureRandom().nextLong();     // Keeps attackers from choosing colliding keys
+        private final long base = System.nanoTime();
+        private final long interval;        // Nanos between two tokens
+        private final long window;          // interval * capacity: how far ahead of now the arrival time may run
+        private final Counter rejected;
+        private final byte[] body;
+
+        Limiter(String key, int slots, int capacity, int perMinute, MeterRegistry meterRegistry, byte[] body) {
+            // Power of two so the slot index is a mask instead of a modulo
+            int size = slots <= 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+            this.slots = new AtomicLongArray(size);
+            this.interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.window = interval * Math.max(1, capacity);
+            this.body = body;
+            this.rejected = Counter.builder("security.login_throttle.rejected")
+                    .description("Login attempts refused before authentication")
+                    .tag("key", key)
+                    .register(meterRegistry);
+        }
+
+        Optional<Rejection> tryAcquire(String key, long nanoTime) {
+            int index = slot(key);
+            long now = nanoTime - base + window;    // Offset so an untouched slot (0) always reads as a full bucket
+
+            for (;;) {
+                long arrival = slots.get(index);
+                long next = Math.max(arrival, now) + interval;
+
+                if (next - now > window) {
+                    rejected.increment();
+                    long waitNanos = next - now - window;
+                    return Optional.of(new Rejection(body, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+                }
+                if (slots.compareAndSet(index, arrival, next)) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        // Seeded FNV-1a with a final mix
+        private int slot(String key) {
+            long hash = seed;
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            return (int) hash & (slots.length() - 1);
+        }
+    }
+}
@@ -1,20 +1,40 @@
 package org.application.hotelbookingappbe.security.user;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.application.hotelbookingappbe.model.User;
 import org.application.hotelbookingappbe.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
-public class HotelUserDetailsService implements UserDetailsService {
+public class HotelUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return userDetailsCache.get(email, this::load);
+    }
+
+    // Rehash on login: called by DaoAuthenticationProvider when the stored hash uses an older cost factor
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+        userDetailsCache.invalidate(user.getUsername());
+
+        HotelUserDetails details = (HotelUserDetails) user;
+        return new HotelUserDetails(details.getId(), details.getEmail(), newPassword, List.copyOf(details.getAuthorities()));
+    }
+
+    private HotelUserDetails load(String email) {
         User user = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return HotelUserDetails.build(user);
     }
@@ -22,7 +42,7 @@ public class HotelUserDetailsService implements UserDetailsService {
 
 /*
     Authentication sırasında Spring Security kullanıcıyı buradan ister
-    DB lookup + UserDetails'e mapping burada merkezi yapılır
+    DB lookup + UserDetails'e mapping burada merkezi yapılır, sonuç UserDetailsCache'te kısa süre tutulur
 
     Spring Security burada ne zaman çağırır?
     UsernamePasswordAuthenticationFilter (form login/basic)
@@ -0,0 +1,65 @@
+package org.application.hotelbookingappbe.security.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+    Short-lived cache of HotelUserDetails (email -> user + roles):
+    - JwtAuthFilter her istekte loadUserByUsername çağırdığında users / users_roles sorguları tekrar tekrar çalışmaz
+    - Rol ya da kullanıcı değişince RoleService / UserService ilgili email'i hemen ve transaction bitince tekrar düşürür,
+      yetki değişiklikleri bu node'da anında geçerli olur
+    - TTL başka node'lardaki değişikliklerin en geç ne zaman görüleceğini belirler
+    - Hit/miss/eviction metrikleri cache.gets / cache.evictions (cache=user-details) olarak yayınlanır
+    - security.user-cache.enabled=false ile tamamen devre dışı kalır
+*/
+@Component
+public class UserDetailsCache {
+    private final boolean enabled;
+    private final Cache<String, HotelUserDetails> users;
+
+    public UserDetailsCache(MeterRegistry meterRegistry,
+                            @Value("${security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${security.user-cache.max-entries:10000}") long maxEntries,
+                            @Value("${security.user-cache.ttl:PT30S}") Duration ttl) {
+        this.enabled = enabled;
+        this.users = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, HotelUserDetails>build(), "user-details");
+    }
+
+    // The loader's UsernameNotFoundException propagates unchanged and nothing is cached
+    public HotelUserDetails get(String email, Function<String, HotelUserDetails> loader) {
+        return enabled ? users.get(email, loader) : loader.apply(email);
+    }
+
+    public void invalidate(String email) {
+        invalidate(List.of(email));
+    }
+
+    public void invalidate(Collection<String> emails) {
+        List<String> keys = List.copyOf(emails);
+        users.invalidateAll(keys);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    users.invalidateAll(keys);
+                }
+            });
+        }
+    }
+}
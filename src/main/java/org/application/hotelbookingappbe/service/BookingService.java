@@ -1,35 +1,125 @@
 package org.application.hotelbookingappbe.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import org.application.hotelbookingappbe.availability.RoomAvailabilityIndex;
+import org.application.hotelbookingappbe.availability.RoomOccupancyBitmap;
+import org.application.hotelbookingappbe.catalog.RoomTypeDictionary;
+import org.application.hotelbookingappbe.confirmation.ConfirmationCodeGenerator;
 import org.application.hotelbookingappbe.dto.BookingDto;
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.GroupBookingFailure;
+import org.application.hotelbookingappbe.dto.GroupBookingItem;
+import org.application.hotelbookingappbe.dto.GroupBookingRequest;
+import org.application.hotelbookingappbe.dto.NightOccupancy;
 import org.application.hotelbookingappbe.dto.RoomDto;
 import org.application.hotelbookingappbe.exception.BookingIsNotFoundException;
+import org.application.hotelbookingappbe.exception.GroupBookingFailedException;
 import org.application.hotelbookingappbe.exception.InvalidBookingRequestException;
 import org.application.hotelbookingappbe.exception.RoomIsNotAvailableException;
+import org.application.hotelbookingappbe.lock.RoomLockStripes;
 import org.application.hotelbookingappbe.model.Booking;
-import org.application.hotelbookingappbe.model.Room;
+import org.application.hotelbookingappbe.pagination.Cursors;
 import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final BookingRepository bookingRepository;
+    private final RoomNightRepository roomNightRepository;
     private final RoomService roomService;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomOccupancyBitmap occupancyBitmap;
+    private final RoomLockStripes roomLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfirmationCodeGenerator confirmationCodes;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final RoomTypeDictionary roomTypes;
 
-    public BookingService(BookingRepository bookingRepository, RoomService roomService) {
+    public BookingService(BookingRepository bookingRepository,
+                          RoomNightRepository roomNightRepository,
+                          RoomService roomService,
+                          RoomAvailabilityIndex availabilityIndex,
+                          RoomOccupancyBitmap occupancyBitmap,
+                          RoomLockStripes roomLocks,
+                          TransactionTemplate transactionTemplate,
+                          ConfirmationCodeGenerator confirmationCodes,
+                          EntityManager entityManager,
+                          ObjectMapper objectMapper,
+                          RoomTypeDictionary roomTypes) {
         this.bookingRepository = bookingRepository;
+        this.roomNightRepository = roomNightRepository;
         this.roomService = roomService;
+        this.availabilityIndex = availabilityIndex;
+        this.occupancyBitmap = occupancyBitmap;
+        this.roomLocks = roomLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.confirmationCodes = confirmationCodes;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.roomTypes = roomTypes;
     }
 
-    public List<BookingDto> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
+    public CursorPage<BookingDto> getAllBookings(String cursor, int size) {
+        int pageSize = Cursors.pageSize(size);
+        List<Booking> bookings = bookingRepository.findPageAfter(Cursors.afterId(cursor), Cursors.limit(pageSize));
 
-        if (bookings.isEmpty()) {
+        if (bookings.isEmpty() && cursor == null) {
             throw new BookingIsNotFoundException("Booking is not found");
         }
 
-        return bookings.stream().map(this::mapToDto).toList();
+        return Cursors.page(bookings, pageSize, Booking::getBookingId).map(this::mapToDto);
+    }
+
+    /*
+        NDJSON export (bellek kullanımı satır sayısından bağımsız):
+        - Booking'ler forward-only bir Stream ile okunur, room join fetch ile aynı satırda gelir (N+1 yok)
+        - Her satır okunur okunmaz tek satırlık JSON olarak yazılır, List<BookingDto> oluşturulmaz
+        - Her EXPORT_CHUNK_SIZE satırda çıktı flush edilir ve persistence context temizlenir
+    */
+    public void exportBookings(OutputStream outputStream) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Booking> bookings = bookingRepository.streamAllWithRoom();
+                 SequenceWriter writer = objectMapper.writerFor(BookingDto.class)
+                         .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                         .withRootValueSeparator("\n")
+                         .writeValues(outputStream)) {
+                int written = 0;
+
+                for (Iterator<Booking> iterator = bookings.iterator(); iterator.hasNext(); ) {
+                    writer.write(mapToDto(iterator.next()));
+
+                    if (++written % EXPORT_CHUNK_SIZE == 0) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+
+                outputStream.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Booking export could not be written", ex);
+            }
+        });
     }
 
     public BookingDto getBookingByConfirmationCode(String confirmationCode) {
@@ -38,64 +128,185 @@ public class BookingService {
         return mapToDto(booking);
     }
 
-    public List<BookingDto> getBookingsByEmail(String email) {
-        List<Booking> bookings = bookingRepository.findByGuestEmail(email);
+    public CursorPage<BookingDto> getBookingsByEmail(String email, String cursor, int size) {
+        int pageSize = Cursors.pageSize(size);
+        List<Booking> bookings = bookingRepository.findPageByGuestEmailAfter(email, Cursors.afterId(cursor), Cursors.limit(pageSize));
 
-        if (bookings.isEmpty()) {
+        if (bookings.isEmpty() && cursor == null) {
             throw new BookingIsNotFoundException("Booking is not found with this email: " + email);
         }
 
-        return bookings.stream().map(this::mapToDto).toList();
+        return Cursors.page(bookings, pageSize, Booking::getBookingId).map(this::mapToDto);
     }
 
+    /*
+        Double booking koruması:
+        - In-memory index hızlı ret için kullanılır (transaction açılmadan)
+        - Aynı oda için yazmalar bu JVM'de RoomLockStripes ile sıraya girer, farklı odalar paralel ilerler
+        - Transaction içinde her gece room_night ledger'ına tek bir multi-row insert ile yazılır
+        - Çakışma kontrolünü DB unique key'i atomik olarak yapar (çoklu node güvenliği), duplicate key -> RoomIsNotAvailableException
+        - Index ve bitmap commit'ten sonra, JVM lock hâlâ tutulurken güncellenir
+    */
     public BookingDto addBooking(Long roomId, BookingDto bookingDto) {
         Booking booking = mapToEntity(bookingDto);
 
-        if (booking.getCheckOutDate().isBefore(booking.getCheckInDate())) {
-            throw new InvalidBookingRequestException("Check out date cannot be before check in date");
+        // A stay is at least one night: checkOut == checkIn would write no ledger row and skip the conflict check
+        if (!booking.getCheckInDate().isBefore(booking.getCheckOutDate())) {
+            throw new InvalidBookingRequestException("Check out date must be after check in date");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
-        List<Booking> existingBookings = room.getBookings();
+        // Unknown room first: the index would otherwise answer (and load a cache entry) for a room that does not exist
+        RoomDto room = roomService.getRoomById(roomId);
 
-        if (!roomIsAvailable(booking, existingBookings)) {
+        if (!availabilityIndex.isAvailable(roomId, booking.getCheckInDate(), booking.getCheckOutDate())) {
             throw new RoomIsNotAvailableException("Room is not available for the selected dates");
         }
 
-        room.addBooking(booking);
-        Booking savedBooking = bookingRepository.save(booking);
+        return roomLocks.withRoomLock(roomId, () -> {
+            Booking savedBooking;
+            try {
+                savedBooking = transactionTemplate.execute(status -> {
+                    // Room row is not loaded: the cached view answered "exists", the booking only needs the FK
+                    booking.setRoom(roomService.getRoomReference(roomId));
+                    roomService.markRoomsBooked(List.of(roomId));
+                    booking.setBookingConfirmationCode(confirmationCodes.next(bookingRepository::existsByBookingConfirmationCode));
 
-        return mapToDto(savedBooking);
+                    // save() assigns the id, the booking row itself is flushed at commit after the ledger insert
+                    Booking saved = bookingRepository.save(booking);
+                    roomNightRepository.insertNights(roomId, saved.getBookingId(), saved.getCheckInDate(), saved.getCheckOutDate());
+                    return saved;
+                });
+            } catch (DuplicateKeyException ex) {
+                // The index missed a stay booked elsewhere: the room is reloaded on its next query
+                availabilityIndex.evictRoom(roomId);
+                throw new RoomIsNotAvailableException("Room is not available for the selected dates");
+            }
+
+            availabilityIndex.addBooking(roomId, savedBooking.getBookingId(), savedBooking.getCheckInDate(), savedBooking.getCheckOutDate());
+            occupancyBitmap.occupy(roomId, savedBooking.getCheckInDate(), savedBooking.getCheckOutDate());
+
+            return mapToDto(savedBooking, room);
+        });
     }
 
-    public void deleteBooking(Long bookingId) {
-        if (!bookingRepository.existsById(bookingId)) {
-            throw new BookingIsNotFoundException("Booking is not found with this id: " + bookingId);
+    /*
+        Group booking (tek transaction, ya hepsi ya hiçbiri):
+        - Tüm item'lar tek geçişte doğrulanır, hatalar item bazında toplanıp birlikte döner
+        - Etkilenen odaların lock'ları deterministik sırayla alınır, iki grup birbirini beklerken kilitlenmez
+        - Booking'ler JDBC batch ile, tüm geceler (night, room_id) sırasıyla multi-row insert ile yazılır
+        - Room satırları yüklenmez, booking'ler oda referansına bağlanır
+    */
+    public List<BookingDto> addGroupBooking(GroupBookingRequest request) {
+        List<GroupBookingItem> items = request.getItems();
+        Set<Long> roomIds = items.stream().map(GroupBookingItem::getRoomId).collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, RoomDto> rooms = roomService.getRoomDtosByIds(roomIds);
+
+        List<GroupBookingFailure> failures = validateGroup(items, rooms);
+        if (!failures.isEmpty()) {
+            throw new GroupBookingFailedException("Group booking is rejected", failures);
         }
 
-        bookingRepository.deleteById(bookingId);
+        return roomLocks.withRoomLocks(roomIds, () -> {
+            List<Booking> savedBookings;
+            try {
+                savedBookings = transactionTemplate.execute(status -> {
+                    List<Booking> bookings = items.stream().map(item -> mapToEntity(request, item)).toList();
+                    List<Booking> saved = bookingRepository.saveAll(bookings);
+                    roomNightRepository.insertNights(saved);
+                    roomService.markRoomsBooked(roomIds);
+                    return saved;
+                });
+            } catch (DuplicateKeyException ex) {
+                // A night was sold (e.g. by another node) after validation: report the items that lost it
+                roomIds.forEach(availabilityIndex::evictRoom);
+                throw new GroupBookingFailedException("Group booking is rejected", findSoldItems(items));
+            }
+
+            for (Booking booking : savedBookings) {
+                Long roomId = booking.getRoom().getId();
+                availabilityIndex.addBooking(roomId, booking.getBookingId(), booking.getCheckInDate(), booking.getCheckOutDate());
+                occupancyBitmap.occupy(roomId, booking.getCheckInDate(), booking.getCheckOutDate());
+            }
+
+            return savedBookings.stream().map(booking -> mapToDto(booking, rooms.get(booking.getRoom().getId()))).toList();
+        });
     }
 
-    private boolean roomIsAvailable(Booking bookingRequest, List<Booking> existingBookings) {
-        return existingBookings.stream()
-                .noneMatch(existingBooking ->
-                        bookingRequest.getCheckInDate().equals(existingBooking.getCheckInDate())
-                                || bookingRequest.getCheckOutDate().isBefore(existingBooking.getCheckOutDate())
-                                || (bookingRequest.getCheckInDate().isAfter(existingBooking.getCheckInDate())
-                                && bookingRequest.getCheckInDate().isBefore(existingBooking.getCheckOutDate()))
-                                || (bookingRequest.getCheckInDate().isBefore(existingBooking.getCheckInDate())
+    private List<GroupBookingFailure> validateGroup(List<GroupBookingItem> items, Map<Long, RoomDto> rooms) {
+        List<GroupBookingFailure> failures = new ArrayList<>();
+        Map<Long, List<GroupBookingItem>> acceptedByRoom = new HashMap<>();
 
-                                && bookingRequest.getCheckOutDate().equals(existingBooking.getCheckOutDate()))
-                                || (bookingRequest.getCheckInDate().isBefore(existingBooking.getCheckInDate())
+        for (int i = 0; i < items.size(); i++) {
+            GroupBookingItem item = items.get(i);
+            List<GroupBookingItem> accepted = acceptedByRoom.computeIfAbsent(item.getRoomId(), id -> new ArrayList<>());
+            String reason = null;
 
-                                && bookingRequest.getCheckOutDate().isAfter(existingBooking.getCheckOutDate()))
+            if (!rooms.containsKey(item.getRoomId())) {
+                reason = "Room is not found";
+            } else if (!item.getCheckInDate().isBefore(item.getCheckOutDate())) {
+                reason = "Check out date must be after check in date";
+            } else if (accepted.stream().anyMatch(other -> overlaps(item, other))) {
+                reason = "Overlaps another stay in this group for the same room";
+            } else if (!availabilityIndex.isAvailable(item.getRoomId(), item.getCheckInDate(), item.getCheckOutDate())) {
+                reason = "Room is not available for the selected dates";
+            }
 
-                                || (bookingRequest.getCheckInDate().equals(existingBooking.getCheckOutDate())
-                                && bookingRequest.getCheckOutDate().equals(existingBooking.getCheckInDate()))
+            if (reason == null) {
+                accepted.add(item);
+            } else {
+                failures.add(new GroupBookingFailure(i, item.getRoomId(), reason));
+            }
+        }
+
+        return failures;
+    }
+
+    private List<GroupBookingFailure> findSoldItems(List<GroupBookingItem> items) {
+        List<GroupBookingFailure> failures = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            GroupBookingItem item = items.get(i);
+            if (roomNightRepository.existsNightBetween(item.getRoomId(), item.getCheckInDate(), item.getCheckOutDate())) {
+                failures.add(new GroupBookingFailure(i, item.getRoomId(), "Room is not available for the selected dates"));
+            }
+        }
 
-                                || (bookingRequest.getCheckInDate().equals(existingBooking.getCheckOutDate())
-                                && bookingRequest.getCheckOutDate().equals(bookingRequest.getCheckInDate()))
-                );
+        if (failures.isEmpty()) {
+            // The conflict is already gone (the other booking was cancelled), the group can simply be retried
+            failures.add(new GroupBookingFailure(-1, null, "Booking conflicted with a concurrent booking, please retry"));
+        }
+
+        return failures;
+    }
+
+    // Stays are half-open [checkIn, checkOut)
+    private static boolean overlaps(GroupBookingItem a, GroupBookingItem b) {
+        return a.getCheckInDate().isBefore(b.getCheckOutDate()) && b.getCheckInDate().isBefore(a.getCheckOutDate());
+    }
+
+    public void deleteBooking(Long bookingId) {
+        BookingStay stay = bookingRepository.findStayByBookingId(bookingId).orElseThrow(
+                () -> new BookingIsNotFoundException("Booking is not found with this id: " + bookingId));
+
+        // Under the room lock: the bitmap recomputes the released nights without a local booking interleaving
+        roomLocks.withRoomLock(stay.getRoomId(), () -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                roomNightRepository.deleteByBookingId(bookingId);
+                bookingRepository.deleteById(bookingId);
+                roomService.markStaysChanged(stay.getRoomId());
+            });
+            availabilityIndex.removeBooking(stay.getRoomId(), bookingId);
+            occupancyBitmap.release(stay.getRoomId(), stay.getCheckInDate(), stay.getCheckOutDate());
+            return null;
+        });
+    }
+
+    public List<NightOccupancy> getNightlyOccupancy(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidBookingRequestException("Report start date must be before its end date");
+        }
+
+        return roomNightRepository.countOccupiedRoomsPerNight(from, to);
     }
 
     private Booking mapToEntity(BookingDto bookingDto) {
@@ -109,7 +320,33 @@ public class BookingService {
         return booking;
     }
 
+    private Booking mapToEntity(GroupBookingRequest request, GroupBookingItem item) {
+        Booking booking = new Booking();
+        booking.setCheckInDate(item.getCheckInDate());
+        booking.setCheckOutDate(item.getCheckOutDate());
+        booking.setGuestName(request.getGuestName());
+        booking.setGuestEmail(request.getGuestEmail());
+        booking.setNumOfAdults(item.getNumOfAdults());
+        booking.setNumOfChildren(item.getNumOfChildren());
+        booking.setRoom(roomService.getRoomReference(item.getRoomId()));
+        booking.setBookingConfirmationCode(confirmationCodes.next(bookingRepository::existsByBookingConfirmationCode));
+        return booking;
+    }
+
     private BookingDto mapToDto(Booking booking) {
+        RoomDto roomDto = null;
+
+        if (booking.getRoom() != null) {
+            roomDto = new RoomDto();
+            roomDto.setId(booking.getRoom().getId());
+            roomDto.setRoomType(roomTypes.nameOf(booking.getRoom().getRoomType()));
+            roomDto.setRoomPrice(booking.getRoom().getRoomPrice());
+        }
+
+        return mapToDto(booking, roomDto);
+    }
+
+    private BookingDto mapToDto(Booking booking, RoomDto roomDto) {
         BookingDto dto = new BookingDto();
         dto.setBookingId(booking.getBookingId());
         dto.setCheckInDate(booking.getCheckInDate());
@@ -119,15 +356,7 @@ public class BookingService {
         dto.setNumOfAdults(booking.getNumOfAdults());
         dto.setNumOfChildren(booking.getNumOfChildren());
         dto.setBookingConfirmationCode(booking.getBookingConfirmationCode());
-
-        if (booking.getRoom() != null) {
-            RoomDto roomDto = new RoomDto();
-            roomDto.setId(booking.getRoom().getId());
-            roomDto.setRoomType(booking.getRoom().getRoomType());
-            roomDto.setRoomPrice(booking.getRoom().getRoomPrice());
-            dto.setRoom(roomDto);
-        }
-
+        dto.setRoom(roomDto);
         return dto;
     }
 }
@@ -8,6 +8,8 @@ import org.application.hotelbookingappbe.model.Role;
 import org.application.hotelbookingappbe.model.User;
 import org.application.hotelbookingappbe.repository.RoleRepository;
 import org.application.hotelbookingappbe.repository.UserRepository;
+import org.application.hotelbookingappbe.security.jwt.TokenEpochs;
+import org.application.hotelbookingappbe.security.user.UserDetailsCache;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +20,8 @@ import java.util.List;
 public class RoleService {
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenEpochs tokenEpochs;
 
     public List<Role> getAllRoles() {
         return roleRepository.findAll();
@@ -43,6 +47,8 @@ public class RoleService {
             role.addRoleToUser(user);
             roleRepository.save(role);
             userRepository.save(user);
+            userDetailsCache.invalidate(user.getEmail());
+            tokenEpochs.bump(user.getId());     // Tokens carry the roles claim, they are reissued with the new roles
         }
     }
 
@@ -52,10 +58,16 @@ public class RoleService {
         role.removeRoleFromUser(user);
         roleRepository.save(role);
         userRepository.save(user);
+        userDetailsCache.invalidate(user.getEmail());
+        tokenEpochs.bump(user.getId());
     }
 
     public void deleteRole(Long roleId) {
         Role role = roleRepository.findById(roleId).orElseThrow(() -> new RoleNotFoundException("Role not found"));
+        List<String> emails = role.getUsers().stream().map(User::getEmail).toList();
+        List<Long> userIds = role.getUsers().stream().map(User::getId).toList();
         roleRepository.delete(role);
+        userDetailsCache.invalidate(emails);
+        tokenEpochs.bump(userIds);
     }
 }
@@ -1,102 +1,235 @@
 package org.application.hotelbookingappbe.service;
 
+import jakarta.transaction.Transactional;
+import org.application.hotelbookingappbe.availability.RoomAvailabilityIndex;
+import org.application.hotelbookingappbe.availability.RoomOccupancyBitmap;
+import org.application.hotelbookingappbe.catalog.CatalogSnapshots;
+import org.application.hotelbookingappbe.catalog.JsonSnapshot;
+import org.application.hotelbookingappbe.catalog.RoomCatalogCache;
+import org.application.hotelbookingappbe.catalog.RoomTypeDictionary;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.dto.RoomDto;
 import org.application.hotelbookingappbe.exception.RoomIsNotFoundException;
 import org.application.hotelbookingappbe.model.Room;
+import org.application.hotelbookingappbe.model.RoomType;
+import org.application.hotelbookingappbe.pagination.Cursors;
+import org.application.hotelbookingappbe.photo.PhotoLibrary;
+import org.application.hotelbookingappbe.photo.StoredPhoto;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
 import org.application.hotelbookingappbe.repository.RoomRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class RoomService {
     private final RoomRepository roomRepository;
-
-    public RoomService(RoomRepository roomRepository) {
+    private final RoomNightRepository roomNightRepository;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomOccupancyBitmap occupancyBitmap;
+    private final PhotoLibrary photoLibrary;
+    private final RoomCatalogCache catalogCache;
+    private final RoomTypeDictionary roomTypes;
+    private final CatalogSnapshots catalogSnapshots;
+
+    public RoomService(RoomRepository roomRepository,
+                       RoomNightRepository roomNightRepository,
+                       RoomAvailabilityIndex availabilityIndex,
+                       RoomOccupancyBitmap occupancyBitmap,
+                       PhotoLibrary photoLibrary,
+                       RoomCatalogCache catalogCache,
+                       RoomTypeDictionary roomTypes,
+                       CatalogSnapshots catalogSnapshots) {
         this.roomRepository = roomRepository;
+        this.roomNightRepository = roomNightRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.occupancyBitmap = occupancyBitmap;
+        this.photoLibrary = photoLibrary;
+        this.catalogCache = catalogCache;
+        this.roomTypes = roomTypes;
+        this.catalogSnapshots = catalogSnapshots;
     }
 
+    @Transactional
     public RoomDto addRoom(MultipartFile photo, String roomType, BigDecimal roomPrice) throws IOException {
         Room room = mapToEntity(photo, roomType, roomPrice);
         Room savedRoom = roomRepository.save(room);
-        return mapToDto(savedRoom);
+        // Flushes the insert first, other nodes register the room on their next bitmap refresh
+        roomRepository.markStaysChanged(savedRoom.getId());
+        RoomDto savedDto = mapToDto(savedRoom);
+        occupancyBitmap.registerRoom(savedDto.getId(), savedDto.getRoomType());
+        catalogCache.invalidate(savedRoom.getId());
+        return savedDto;
     }
 
+    // Served from memory, no SELECT DISTINCT over the room table
     public List<String> getRoomTypes() {
-        return roomRepository.findDistinctRoomTypes();
+        return roomTypes.names();
+    }
+
+    public CursorPage<RoomDto> getAllRooms(String cursor, int size) {
+        int pageSize = Cursors.pageSize(size);
+        return catalogCache.getPage(cursor, pageSize, () -> {
+            List<RoomDto> rooms = roomRepository.findRoomDtosAfter(Cursors.afterId(cursor), Cursors.limit(pageSize));
+            return Cursors.page(rooms, pageSize, RoomDto::getId);
+        });
     }
 
-    public List<RoomDto> getAllRooms() {
-        List<Room> rooms = roomRepository.findAll();
-        return rooms.stream().map(this::mapToDto).toList();
+    // Serialized once per catalog generation, the controller writes the bytes as they are
+    public JsonSnapshot getRoomTypesSnapshot() {
+        return catalogSnapshots.get("room-types", null, 0, this::getRoomTypes);
     }
 
+    public JsonSnapshot getAllRoomsSnapshot(String cursor, int size) {
+        int pageSize = Cursors.pageSize(size);
+        return catalogSnapshots.get("all-rooms", cursor, pageSize, () -> getAllRooms(cursor, pageSize));
+    }
+
+    // Served from the catalog cache, BookingService uses it to check the room before linking a reference
     public RoomDto getRoomById(Long roomId) {
-        Room room = roomRepository.findById(roomId).orElseThrow(() -> new RoomIsNotFoundException("Room is not found"));
-        return mapToDto(room);
+        return catalogCache.getRoom(roomId, id -> roomRepository.findById(id)
+                .map(this::mapToDto)
+                .orElseThrow(() -> new RoomIsNotFoundException("Room is not found")));
+    }
+
+    // No SELECT: only the id is needed to link a booking to the room
+    public Room getRoomReference(Long roomId) {
+        return roomRepository.getReferenceById(roomId);
+    }
+
+    public Map<Long, RoomDto> getRoomDtosByIds(Collection<Long> roomIds) {
+        return roomRepository.findRoomDtosByIdIn(roomIds).stream()
+                .collect(Collectors.toMap(RoomDto::getId, Function.identity()));
+    }
+
+    // Must run inside the booking transaction
+    public void markRoomsBooked(Collection<Long> roomIds) {
+        roomRepository.markBooked(roomIds);
     }
 
-    public Room getRoomEntityById(Long roomId) {
-        return roomRepository.findById(roomId).orElseThrow(() -> new RoomIsNotFoundException("Room is not found"));
+    // Must run inside the cancellation transaction, other nodes refresh the room from this timestamp
+    public void markStaysChanged(Long roomId) {
+        roomRepository.markStaysChanged(roomId);
     }
 
-    public byte[] getRoomPhotoByRoomId(Long roomId) {
+    public String getRoomPhotoKey(Long roomId) {
         Room room = roomRepository.findById(roomId).orElseThrow(() -> new RoomIsNotFoundException("Room is not found"));
-        return room.getPhoto();
+        return room.getPhotoKey();
     }
 
-    public List<RoomDto> getAvailableRooms(LocalDate checkInDate, LocalDate checkOutDate, String roomType) {
-        List<Room> bookedRooms = roomRepository.findBookedRoomsInDateRange(checkInDate, checkOutDate, roomType);
+    public Optional<StoredPhoto> getPhoto(String photoKey, Integer width) {
+        return photoLibrary.find(photoKey, width);
+    }
+
+    // Keyset pagination: next page starts after the last room id of the previous page (opaque cursor)
+    public CursorPage<RoomDto> getAvailableRooms(LocalDate checkInDate, LocalDate checkOutDate, String roomType, String cursor, int size) {
+        long lastSeenId = Cursors.afterId(cursor);
+        int pageSize = Cursors.pageSize(size);
 
-        List<Room> allRooms = roomRepository.findByRoomType(roomType);
+        // Unknown type: nothing to search, neither the bitmap nor the DB has rooms of it
+        Optional<Integer> roomTypeId = roomTypes.idOf(roomType);
+        if (roomTypeId.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
 
-        List<Room> availableRooms = allRooms.stream().filter(room -> !bookedRooms.contains(room)).toList();
+        Optional<List<Long>> availableRoomIds = occupancyBitmap.findAvailableRoomIds(roomType, checkInDate, checkOutDate);
+
+        if (availableRoomIds.isPresent()) {
+            List<Long> roomIds = availableRoomIds.get().stream()
+                    .filter(roomId -> roomId > lastSeenId)
+                    .limit(pageSize + 1)
+                    .toList();
+            // The next cursor comes from the bitmap ids, a room deleted meanwhile only shortens this page
+            CursorPage<Long> page = Cursors.page(roomIds, pageSize, Function.identity());
+            List<RoomDto> rooms = page.getItems().isEmpty() ? List.of() : roomRepository.findRoomDtosByIdIn(page.getItems());
+            return new CursorPage<>(rooms, page.getNextCursor());
+        }
 
-        return availableRooms.stream().map(this::mapToDto).toList();
+        // Dates outside the bitmap horizon (or bitmap not built yet): single anti-join query
+        List<RoomDto> rooms = roomRepository.findAvailableRoomDtos(checkInDate, checkOutDate, roomTypeId.get(), lastSeenId, Cursors.limit(pageSize));
+        return Cursors.page(rooms, pageSize, RoomDto::getId);
     }
 
+    @Transactional
     public RoomDto updateRoom(Long roomId, String roomType, BigDecimal roomPrice, MultipartFile photo) throws IOException {
         Room room = roomRepository.findById(roomId).orElseThrow(() -> new RoomIsNotFoundException("Room is not found"));
-        room.setRoomType(roomType);
+        RoomType previousType = room.getRoomType();
+        room.setRoomType(roomTypes.resolve(roomType));
         room.setRoomPrice(roomPrice);
+        String previousPhotoKey = room.getPhotoKey();
 
         if (photo != null && !photo.isEmpty()) {
-            room.setPhoto(photo.getBytes());
+            room.setPhotoKey(storePhoto(photo));
         }
 
         Room updatedRoom = roomRepository.save(room);
-        return mapToDto(updatedRoom);
+        // Other nodes move the room to its new type on their next bitmap refresh
+        roomRepository.markStaysChanged(roomId);
+        RoomDto updatedDto = mapToDto(updatedRoom);
+        occupancyBitmap.registerRoom(updatedDto.getId(), updatedDto.getRoomType());
+        catalogCache.invalidate(updatedRoom.getId());
+        if (!Objects.equals(typeId(previousType), typeId(updatedRoom.getRoomType()))) {
+            roomTypes.removeIfUnused(previousType);
+        }
+        if (!Objects.equals(previousPhotoKey, updatedRoom.getPhotoKey())) {
+            photoLibrary.release(previousPhotoKey);
+        }
+        return updatedDto;
     }
 
+    @Transactional
     public void deleteRoom(Long roomId) {
         Room room = roomRepository.findById(roomId).orElseThrow(() -> new RoomIsNotFoundException("Room is not found"));
+        roomNightRepository.deleteByRoomId(roomId);
         roomRepository.delete(room);
+        availabilityIndex.evictRoom(roomId);
+        occupancyBitmap.removeRoom(roomId);
+        catalogCache.invalidate(roomId);
+        roomTypes.removeIfUnused(room.getRoomType());
+        photoLibrary.release(room.getPhotoKey());
     }
 
     private Room mapToEntity(MultipartFile photo, String roomType, BigDecimal roomPrice) throws IOException {
         Room room = new Room();
-        room.setRoomType(roomType);
+        room.setRoomType(roomTypes.resolve(roomType));
         room.setRoomPrice(roomPrice);
 
         if (photo != null && !photo.isEmpty()) {
-            room.setPhoto(photo.getBytes());
-        } else {
-            room.setPhoto(null);
+            room.setPhotoKey(storePhoto(photo));
         }
 
         return room;
     }
 
+    // The multipart file is already on disk, it is streamed (not loaded) into the photo library
+    private String storePhoto(MultipartFile photo) throws IOException {
+        try (InputStream in = photo.getInputStream()) {
+            return photoLibrary.acquire(in);
+        }
+    }
+
     private RoomDto mapToDto(Room room) {
         RoomDto roomDto = new RoomDto();
         roomDto.setId(room.getId());
-        roomDto.setRoomType(room.getRoomType());
+        roomDto.setRoomType(roomTypes.nameOf(room.getRoomType()));
         roomDto.setRoomPrice(room.getRoomPrice());
 
         return roomDto;
     }
+
+    // Compared by id: a lazy RoomType proxy is not initialized and Lombok equals would read its empty fields
+    private static Integer typeId(RoomType roomType) {
+        return roomType == null ? null : roomType.getId();
+    }
 }
@@ -1,28 +1,39 @@
 package org.application.hotelbookingappbe.service;
 
 import jakarta.transaction.Transactional;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.exception.UserAlreadyExistsException;
 import org.application.hotelbookingappbe.model.Role;
 import org.application.hotelbookingappbe.model.User;
+import org.application.hotelbookingappbe.pagination.Cursors;
 import org.application.hotelbookingappbe.repository.RoleRepository;
 import org.application.hotelbookingappbe.repository.UserRepository;
+import org.application.hotelbookingappbe.security.jwt.TokenEpochs;
+import org.application.hotelbookingappbe.security.user.UserDetailsCache;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenEpochs tokenEpochs;
 
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       UserDetailsCache userDetailsCache, TokenEpochs tokenEpochs) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenEpochs = tokenEpochs;
     }
 
     @Transactional
@@ -47,8 +58,10 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getAllUsers(String cursor, int size) {
+        int pageSize = Cursors.pageSize(size);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(Cursors.afterId(cursor), Cursors.limit(pageSize));
+        return Cursors.page(users, pageSize, User::getId);
     }
 
     public User getUserById(Long userId) {
@@ -58,11 +71,24 @@ public class UserService {
 
     public User updateUser(Long userId, User user) {
         User existingUser = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
+        String previousEmail = existingUser.getEmail();
         existingUser.setFirstName(user.getFirstName());
         existingUser.setLastName(user.getLastName());
         existingUser.setEmail(user.getEmail());
-        existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(existingUser);
+        // The same password is not re-encoded: the stored hash stays and open sessions are kept
+        boolean passwordChanged = !passwordEncoder.matches(user.getPassword(), existingUser.getPassword());
+        if (passwordChanged) {
+            existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
+        }
+        User savedUser = userRepository.save(existingUser);
+
+        // Both emails: the old one must stop resolving, the new one must not serve a stale password
+        userDetailsCache.invalidate(Stream.of(previousEmail, savedUser.getEmail()).filter(Objects::nonNull).toList());
+        // New password or email: sessions opened with the old credentials are closed, a name-only edit keeps them
+        if (passwordChanged || !Objects.equals(previousEmail, savedUser.getEmail())) {
+            tokenEpochs.bump(userId);
+        }
+        return savedUser;
     }
 
     @Transactional
@@ -70,6 +96,8 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
         userRepository.delete(user);
+        userDetailsCache.invalidate(user.getEmail());
+        tokenEpochs.invalidate(List.of(userId));
     }
 
     public boolean isOwner(Long userId, String username) {
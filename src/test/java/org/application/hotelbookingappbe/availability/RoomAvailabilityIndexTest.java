@@ -0,0 +1,135 @@
+package org.application.hotelbookingappbe.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoomAvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void init() {
+        availabilityIndex = new RoomAvailabilityIndex(bookingRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+        // Room 10: 10-15 Ocak ve 20-22 Ocak dolu
+        when(bookingRepository.findStaysByRoomId(10L)).thenReturn(List.of(
+                stay(1L, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 15)),
+                stay(2L, LocalDate.of(2026, 1, 20), LocalDate.of(2026, 1, 22))
+        ));
+    }
+
+    @Test
+    void isAvailable_whenRangeOverlapsExistingStay_shouldReturnFalse() {
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12)));
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 14), LocalDate.of(2026, 1, 21)));
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1)));
+    }
+
+    @Test
+    void isAvailable_whenRangeFitsBetweenStays_shouldReturnTrue() {
+        // checkOut günü bir sonraki misafirin checkIn günü olabilir
+        assertTrue(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 20)));
+        assertTrue(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 5), LocalDate.of(2026, 1, 10)));
+        assertTrue(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 22), LocalDate.of(2026, 1, 25)));
+    }
+
+    @Test
+    void addBooking_shouldBlockRange_andLoadRoomOnlyOnce() {
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+        availabilityIndex.addBooking(10L, 3L, LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 18));
+
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 17), LocalDate.of(2026, 1, 19)));
+        assertTrue(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 18), LocalDate.of(2026, 1, 20)));
+
+        verify(bookingRepository, times(1)).findStaysByRoomId(10L);
+    }
+
+    @Test
+    void removeBooking_shouldFreeOnlyThatStay() {
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+        availabilityIndex.addBooking(10L, 3L, LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 20));    // 10-22 tek blok olur
+
+        availabilityIndex.removeBooking(10L, 3L);
+
+        assertTrue(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 20)));
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 12), LocalDate.of(2026, 1, 13)));
+        assertFalse(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 21), LocalDate.of(2026, 1, 23)));
+    }
+
+    @Test
+    void evictRoom_shouldReloadFromRepositoryOnNextQuery() {
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+        availabilityIndex.evictRoom(10L);
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+
+        verify(bookingRepository, times(2)).findStaysByRoomId(10L);
+    }
+
+    @Test
+    void isAvailable_whenEntryExpired_shouldSeeBookingsMadeElsewhere() throws Exception {
+        RoomAvailabilityIndex shortLived = new RoomAvailabilityIndex(bookingRepository, new SimpleMeterRegistry(), 100, Duration.ofMillis(50));
+        assertTrue(shortLived.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2)));
+
+        // Başka bir node 1-2 Mart'ı sattı
+        when(bookingRepository.findStaysByRoomId(10L)).thenReturn(List.of(
+                stay(7L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2))));
+        Thread.sleep(100);
+
+        assertFalse(shortLived.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2)));
+    }
+
+    @Test
+    void isAvailable_whenWriteHappensDuringLoad_shouldNotCacheLoadedStays() {
+        when(bookingRepository.findStaysByRoomId(10L)).thenAnswer(invocation -> {
+            // Yükleme sürerken commit edilen booking okunan sonuca dahil değil
+            availabilityIndex.addBooking(10L, 8L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+            return List.of();
+        });
+
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+        availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2));
+
+        verify(bookingRepository, times(2)).findStaysByRoomId(10L);
+    }
+
+    private static BookingStay stay(Long bookingId, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingStay() {
+            @Override
+            public Long getBookingId() {
+                return bookingId;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return 10L;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOut;
+            }
+        };
+    }
+}
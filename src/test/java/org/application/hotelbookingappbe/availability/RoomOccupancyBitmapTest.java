@@ -0,0 +1,181 @@
+package org.application.hotelbookingappbe.availability;
+
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.dto.RoomDto;
+import org.application.hotelbookingappbe.dto.RoomStaysChange;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoomOccupancyBitmapTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private RoomOccupancyBitmap occupancyBitmap;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void init() {
+        occupancyBitmap = new RoomOccupancyBitmap(roomRepository, bookingRepository, 365, Duration.ofSeconds(30));
+
+        when(roomRepository.findAllRoomDtos()).thenReturn(List.of(
+                new RoomDto(1L, "DELUXE", new BigDecimal("1500.00")),
+                new RoomDto(2L, "DELUXE", new BigDecimal("1500.00")),
+                new RoomDto(3L, "STANDARD", new BigDecimal("500.00"))
+        ));
+        // Room 1: 60. geceden 130. geceye kadar dolu (birden fazla long word'e yayılır)
+        BookingStay stay = stay(1L, today.plusDays(60), today.plusDays(130));
+        when(bookingRepository.findStaysBetween(any(), any())).thenReturn(List.of(stay));
+
+        occupancyBitmap.rebuild();
+    }
+
+    @Test
+    void findAvailableRoomIds_shouldExcludeOccupiedRooms_ofRequestedTypeOnly() {
+        assertEquals(Optional.of(List.of(2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(100), today.plusDays(102)));
+        assertEquals(Optional.of(List.of(1L, 2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(130), today.plusDays(140)));
+        assertEquals(Optional.of(List.of(1L, 2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(50), today.plusDays(60)));
+        assertEquals(Optional.of(List.of(3L)),
+                occupancyBitmap.findAvailableRoomIds("STANDARD", today.plusDays(100), today.plusDays(102)));
+        // Tip, görünen isimden bağımsız olarak normalize edilmiş key ile aranır
+        assertEquals(Optional.of(List.of(3L)),
+                occupancyBitmap.findAvailableRoomIds(" standard", today.plusDays(100), today.plusDays(102)));
+    }
+
+    @Test
+    void findAvailableRoomIds_whenOutsideHorizon_shouldReturnEmpty() {
+        assertTrue(occupancyBitmap.findAvailableRoomIds("DELUXE", today.minusDays(1), today.plusDays(2)).isEmpty());
+        assertTrue(occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(360), today.plusDays(370)).isEmpty());
+    }
+
+    @Test
+    void occupyAndRelease_shouldUpdateBitmapIncrementally() {
+        occupancyBitmap.occupy(2L, today.plusDays(10), today.plusDays(12));
+        assertEquals(Optional.of(List.of(1L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(11), today.plusDays(15)));
+
+        occupancyBitmap.release(2L, today.plusDays(10), today.plusDays(12));
+        assertEquals(Optional.of(List.of(1L, 2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(11), today.plusDays(15)));
+    }
+
+    @Test
+    void release_shouldKeepNightsStillCoveredByAnotherStay() {
+        occupancyBitmap.occupy(2L, today.plusDays(10), today.plusDays(14));
+        occupancyBitmap.occupy(2L, today.plusDays(12), today.plusDays(16));
+        BookingStay remaining = stay(2L, today.plusDays(12), today.plusDays(16));
+        when(bookingRepository.findStaysByRoomIdInBetween(List.of(2L), today.plusDays(10), today.plusDays(14)))
+                .thenReturn(List.of(remaining));
+
+        occupancyBitmap.release(2L, today.plusDays(10), today.plusDays(14));
+
+        assertEquals(Optional.of(List.of(1L, 2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(10), today.plusDays(12)));
+        assertEquals(Optional.of(List.of(1L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(13), today.plusDays(14)));
+    }
+
+    @Test
+    void refresh_shouldReloadRoomsChangedOnOtherNodes_andScanTheWindowAgain() {
+        LocalDateTime changedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        // Room 2 was booked elsewhere, room 1's stay was cancelled elsewhere
+        RoomStaysChange booked = change(2L, "DELUXE", changedAt);
+        RoomStaysChange cancelled = change(1L, "DELUXE", changedAt.minusSeconds(1));
+        when(roomRepository.findStaysChangedSince(any())).thenReturn(List.of(booked, cancelled));
+        BookingStay bookedElsewhere = stay(2L, today.plusDays(5), today.plusDays(7));
+        when(bookingRepository.findStaysByRoomIdInBetween(any(), any(), any())).thenReturn(List.of(bookedElsewhere));
+
+        occupancyBitmap.refresh();
+
+        assertEquals(Optional.of(List.of(1L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(6), today.plusDays(8)));
+        assertEquals(Optional.of(List.of(1L, 2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(100), today.plusDays(102)));
+
+        occupancyBitmap.refresh();
+        verify(roomRepository).findStaysChangedSince(changedAt.minusSeconds(30));
+    }
+
+    @Test
+    void refresh_whenNothingChanged_shouldNotReadStays() {
+        when(roomRepository.findStaysChangedSince(any())).thenReturn(List.of());
+
+        occupancyBitmap.refresh();
+
+        verify(bookingRepository, never()).findStaysByRoomIdInBetween(any(), any(), any());
+        assertEquals(Optional.of(List.of(2L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(100), today.plusDays(102)));
+    }
+
+    @Test
+    void refresh_shouldRegisterRoomsCreatedOrRetypedOnOtherNodes() {
+        LocalDateTime changedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        // Room 4 was created elsewhere, room 3 was moved from STANDARD to DELUXE elsewhere
+        RoomStaysChange created = change(4L, "Deluxe", changedAt);
+        RoomStaysChange retyped = change(3L, "DELUXE", changedAt);
+        when(roomRepository.findStaysChangedSince(any())).thenReturn(List.of(created, retyped));
+        BookingStay bookedElsewhere = stay(4L, today.plusDays(5), today.plusDays(7));
+        when(bookingRepository.findStaysByRoomIdInBetween(any(), any(), any())).thenReturn(List.of(bookedElsewhere));
+
+        occupancyBitmap.refresh();
+
+        assertEquals(Optional.of(List.of(1L, 2L, 3L, 4L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(1), today.plusDays(2)));
+        assertEquals(Optional.of(List.of(1L, 2L, 3L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(6), today.plusDays(8)));
+        assertEquals(Optional.of(List.of()),
+                occupancyBitmap.findAvailableRoomIds("STANDARD", today.plusDays(1), today.plusDays(2)));
+    }
+
+    @Test
+    void registerAndRemoveRoom_shouldMoveRoomBetweenTypes() {
+        occupancyBitmap.registerRoom(3L, "DELUXE");
+        occupancyBitmap.registerRoom(4L, "STANDARD");
+        occupancyBitmap.removeRoom(2L);
+
+        assertEquals(Optional.of(List.of(1L, 3L)),
+                occupancyBitmap.findAvailableRoomIds("DELUXE", today.plusDays(1), today.plusDays(2)));
+        assertEquals(Optional.of(List.of(4L)),
+                occupancyBitmap.findAvailableRoomIds("STANDARD", today.plusDays(1), today.plusDays(2)));
+    }
+
+    private static RoomStaysChange change(Long roomId, String roomType, LocalDateTime changedAt) {
+        RoomStaysChange change = mock(RoomStaysChange.class);
+        when(change.getRoomId()).thenReturn(roomId);
+        when(change.getRoomType()).thenReturn(roomType);
+        when(change.getStaysChangedAt()).thenReturn(changedAt);
+        return change;
+    }
+
+    private static BookingStay stay(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        BookingStay stay = mock(BookingStay.class);
+        lenient().when(stay.getRoomId()).thenReturn(roomId);
+        when(stay.getCheckInDate()).thenReturn(checkIn);
+        when(stay.getCheckOutDate()).thenReturn(checkOut);
+        return stay;
+    }
+}
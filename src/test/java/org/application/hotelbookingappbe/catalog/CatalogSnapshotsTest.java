@@ -0,0 +1,97 @@
+package org.application.hotelbookingappbe.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomCatalogCache catalogCache;
+    private AtomicInteger builds;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogCache = new RoomCatalogCache(meterRegistry, true, 100, Duration.ofMinutes(10));
+        builds = new AtomicInteger();
+    }
+
+    @Test
+    void get_shouldSerializeOncePerGeneration() throws Exception {
+        CatalogSnapshots snapshots = snapshots(true);
+
+        JsonSnapshot first = snapshots.get("room-types", null, 0, this::roomTypes);
+        JsonSnapshot second = snapshots.get("room-types", null, 0, this::roomTypes);
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of("DELUXE", "STANDARD")), first.getJson());
+
+        // Katalog değişti: yeni generation, snapshot bir kez yeniden üretilir
+        catalogCache.invalidate(1L);
+        JsonSnapshot rebuilt = snapshots.get("room-types", null, 0, this::roomTypes);
+        snapshots.get("room-types", null, 0, this::roomTypes);
+
+        assertNotSame(first, rebuilt);
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void get_shouldKeepPagesApart() {
+        CatalogSnapshots snapshots = snapshots(true);
+
+        snapshots.get("all-rooms", null, 20, this::roomTypes);
+        snapshots.get("all-rooms", "MTA", 20, this::roomTypes);
+        snapshots.get("all-rooms", null, 50, this::roomTypes);
+
+        assertEquals(3, builds.get());
+    }
+
+    @Test
+    void get_whenDisabled_shouldSerializeEveryTimeWithoutGzip() {
+        CatalogSnapshots snapshots = snapshots(false);
+
+        JsonSnapshot first = snapshots.get("room-types", null, 0, this::roomTypes);
+        JsonSnapshot second = snapshots.get("room-types", null, 0, this::roomTypes);
+
+        assertEquals(2, builds.get());
+        assertEquals(first.getEtag(), second.getEtag());
+        assertNull(first.getGzip());
+    }
+
+    @Test
+    void of_shouldKeepGzipCopyOnlyWhenSmaller() throws Exception {
+        byte[] large = objectMapper.writeValueAsBytes(Collections.nCopies(100, "DELUXE"));
+        JsonSnapshot compressed = JsonSnapshot.of(large, true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getGzip()))) {
+            assertArrayEquals(large, in.readAllBytes());
+        }
+        assertNotEquals(compressed.getEtag(), compressed.getGzipEtag());
+
+        // Çok küçük body'de gzip header'ı kazançtan büyük
+        assertNull(JsonSnapshot.of("[]".getBytes(), true).getGzip());
+    }
+
+    private CatalogSnapshots snapshots(boolean enabled) {
+        return new CatalogSnapshots(objectMapper, catalogCache, meterRegistry, enabled, true, Duration.ofMinutes(10));
+    }
+
+    private List<String> roomTypes() {
+        builds.incrementAndGet();
+        return List.of("DELUXE", "STANDARD");
+    }
+}
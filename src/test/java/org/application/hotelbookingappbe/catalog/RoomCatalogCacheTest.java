@@ -0,0 +1,89 @@
+package org.application.hotelbookingappbe.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.RoomDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomCatalogCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomCatalogCache catalogCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogCache = new RoomCatalogCache(meterRegistry, true, 100, Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getRoom_shouldLoadOnce_andPublishHitMissMetrics() {
+        catalogCache.getRoom(1L, this::load);
+        catalogCache.getRoom(1L, this::load);
+        catalogCache.getRoom(1L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "rooms", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "rooms", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_shouldDropRoomAndPages() {
+        catalogCache.getRoom(1L, this::load);
+        catalogCache.getPage(null, 20, () -> new CursorPage<>(List.of(load(1L)), null));
+
+        catalogCache.invalidate(1L);
+
+        catalogCache.getRoom(1L, this::load);
+        catalogCache.getPage(null, 20, () -> new CursorPage<>(List.of(load(1L)), null));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void invalidate_insideTransaction_shouldEvictAgainAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogCache.invalidate(1L);
+
+            // Commit'ten önce başka bir istek eski satırı okuyup cache'e koyar
+            catalogCache.getRoom(1L, this::load);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        catalogCache.getRoom(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getRoom_whenDisabled_shouldAlwaysCallLoader() {
+        RoomCatalogCache disabled = new RoomCatalogCache(meterRegistry, false, 100, Duration.ofMinutes(10));
+
+        disabled.getRoom(1L, this::load);
+        disabled.getRoom(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private RoomDto load(Long roomId) {
+        loads.incrementAndGet();
+        return new RoomDto(roomId, "DELUXE", new BigDecimal("1500.00"));
+    }
+}
@@ -0,0 +1,112 @@
+package org.application.hotelbookingappbe.catalog;
+
+import org.application.hotelbookingappbe.model.RoomType;
+import org.application.hotelbookingappbe.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoomTypeDictionaryTest {
+
+    @Mock
+    private RoomTypeRepository roomTypeRepository;
+
+    @Mock
+    private RoomCatalogCache catalogCache;
+
+    @InjectMocks
+    private RoomTypeDictionary roomTypes;
+
+    private final RoomType deluxe = new RoomType(1, "Deluxe", "DELUXE");
+    private final RoomType standard = new RoomType(2, "Standard", "STANDARD");
+
+    @BeforeEach
+    void init() {
+        lenient().when(roomTypeRepository.findAll()).thenReturn(List.of(standard, deluxe));
+    }
+
+    @Test
+    void namesAndLookups_shouldBeServedFromOneLoad() {
+        // Görünen isim olduğu gibi döner, lookup normalize edilmiş key ile yapılır
+        assertEquals(List.of("Deluxe", "Standard"), roomTypes.names());
+        assertEquals(Optional.of(1), roomTypes.idOf(" deluxe"));
+        assertEquals(Optional.of(1), roomTypes.idOf("DELUXE"));
+        assertEquals(Optional.empty(), roomTypes.idOf("SUITE"));
+        assertEquals("Standard", roomTypes.nameOf(new RoomType(2, null, null)));
+
+        verify(roomTypeRepository, times(1)).findAll();
+        verifyNoInteractions(catalogCache);
+    }
+
+    @Test
+    void resolve_whenTypeExists_shouldLockRowWithoutInsert() {
+        when(roomTypeRepository.findByIdForShare(1)).thenReturn(Optional.of(deluxe));
+
+        assertSame(deluxe, roomTypes.resolve("DELUXE"));
+
+        verify(roomTypeRepository, never()).insertIfAbsent(any(), any());
+    }
+
+    @Test
+    void resolve_whenCachedTypeWasDeletedMeanwhile_shouldInsertItAgain() {
+        // Snapshot'taki tip, son odası başka bir transaction'da silinince removeIfUnused ile kaldırılmış
+        RoomType recreated = new RoomType(5, "Standard", "STANDARD");
+        when(roomTypeRepository.findByIdForShare(2)).thenReturn(Optional.empty());
+        when(roomTypeRepository.findByNameKeyForShare("STANDARD")).thenReturn(Optional.of(recreated));
+
+        assertSame(recreated, roomTypes.resolve("Standard"));
+
+        verify(roomTypeRepository).insertIfAbsent("Standard", "STANDARD");
+    }
+
+    @Test
+    void resolve_whenTypeIsNew_shouldInsertDisplayNameAndReloadAfterCommit() {
+        RoomType suite = new RoomType(3, "Junior Suite", "JUNIOR SUITE");
+        when(roomTypeRepository.findByNameKeyForShare("JUNIOR SUITE")).thenReturn(Optional.of(suite));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertSame(suite, roomTypes.resolve(" Junior Suite "));
+
+            when(roomTypeRepository.findAll()).thenReturn(List.of(standard, deluxe, suite));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(roomTypeRepository).insertIfAbsent("Junior Suite", "JUNIOR SUITE");
+        assertEquals(List.of("Deluxe", "Junior Suite", "Standard"), roomTypes.names());
+    }
+
+    @Test
+    void removeIfUnused_whenRowDeleted_shouldDropTypeFromNames() {
+        roomTypes.names();
+        when(roomTypeRepository.deleteIfUnused(2)).thenReturn(1);
+        when(roomTypeRepository.findAll()).thenReturn(List.of(deluxe));
+
+        roomTypes.removeIfUnused(standard);
+
+        assertEquals(List.of("Deluxe"), roomTypes.names());
+        // Liste değişti: room-types snapshot'ı yeni generation ile üretilir
+        verify(catalogCache).invalidatePages();
+    }
+
+    @Test
+    void resolve_whenNameBlank_shouldReturnNull() {
+        assertNull(roomTypes.resolve("  "));
+        verifyNoInteractions(roomTypeRepository);
+    }
+}
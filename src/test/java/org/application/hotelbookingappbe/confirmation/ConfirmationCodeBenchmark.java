@@ -0,0 +1,36 @@
+package org.application.hotelbookingappbe.confirmation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Confirmation code üretimi, 32 thread aynı anda booking yaparken:
+    - randomUuid: eski akış, her kod için paylaşılan SecureRandom'dan 16 byte (tüm thread'ler aynı lock'ta sıraya girer)
+    - generator: ConfirmationCodeGenerator, thread başına SecureRandom ve toplu doldurulan entropy buffer'ı
+
+    Çalıştırma:
+    mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+        -Dexec.args="-cp %classpath org.openjdk.jmh.Main ConfirmationCodeBenchmark"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class ConfirmationCodeBenchmark {
+    private final ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator();
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.next();
+    }
+}
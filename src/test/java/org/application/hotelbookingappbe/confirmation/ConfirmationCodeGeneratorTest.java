@@ -0,0 +1,54 @@
+package org.application.hotelbookingappbe.confirmation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfirmationCodeGeneratorTest {
+
+    private final ConfirmationCodeGenerator generator = new ConfirmationCodeGenerator();
+
+    @Test
+    void next_shouldReturnCrockfordBase32Code() {
+        String code = generator.next();
+
+        assertEquals(ConfirmationCodeGenerator.CODE_LENGTH, code.length());
+        assertTrue(code.matches("[0-9A-HJKMNP-TV-Z]+"), code);   // I, L, O, U yok
+    }
+
+    @Test
+    void next_fromManyThreads_shouldNotRepeat() throws Exception {
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+
+        for (int i = 0; i < 32; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    codes.add(generator.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(32_000, codes.size());
+    }
+
+    @Test
+    void next_whenCodeIsTaken_shouldRetry_andFailAfterMaxAttempts() {
+        AtomicInteger checks = new AtomicInteger();
+
+        String code = generator.next(candidate -> checks.incrementAndGet() == 1);   // İlk kod çakışıyor
+        assertNotNull(code);
+        assertEquals(2, checks.get());
+
+        assertThrows(IllegalStateException.class, () -> generator.next(candidate -> true));
+    }
+}
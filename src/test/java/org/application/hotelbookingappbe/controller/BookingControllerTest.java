@@ -2,8 +2,15 @@ package org.application.hotelbookingappbe.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.application.hotelbookingappbe.dto.BookingDto;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.GroupBookingFailure;
+import org.application.hotelbookingappbe.dto.GroupBookingItem;
+import org.application.hotelbookingappbe.dto.GroupBookingRequest;
+import org.application.hotelbookingappbe.dto.NightOccupancy;
 import org.application.hotelbookingappbe.dto.RoomDto;
 import org.application.hotelbookingappbe.exception.GlobalExceptionHandler;
+import org.application.hotelbookingappbe.exception.GroupBookingFailedException;
+import org.application.hotelbookingappbe.exception.InvalidCursorException;
 import org.application.hotelbookingappbe.service.BookingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,8 +23,11 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -102,19 +112,51 @@ public class BookingControllerTest {
             when: mock objenin davranışını belirleriz
             thenReturn: bu metod çağrıldığında dönmesini istediğimiz sonucu veririz
         */
-        when(bookingService.getAllBookings()).thenReturn(List.of(bookingDto1, bookingDto2));
+        when(bookingService.getAllBookings(null, 20))
+                .thenReturn(new CursorPage<>(List.of(bookingDto1, bookingDto2), "aWQ6Mg"));
 
         mockMvc.perform(get("/api/bookings"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].bookingId", is(1)))
-                .andExpect(jsonPath("$[0].guestEmail", is("ahmet@gmail.com")))
-                .andExpect(jsonPath("$[1].bookingId", is(2)))
-                .andExpect(jsonPath("$[1].guestEmail", is("mehmet@mail.com")));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].bookingId", is(1)))
+                .andExpect(jsonPath("$.items[0].guestEmail", is("ahmet@gmail.com")))
+                .andExpect(jsonPath("$.items[1].bookingId", is(2)))
+                .andExpect(jsonPath("$.items[1].guestEmail", is("mehmet@mail.com")))
+                .andExpect(jsonPath("$.nextCursor", is("aWQ6Mg")));
 
         // verify: ilgili metod gerçekten kaç kez çağrıldı?
-        verify(bookingService, times(1)).getAllBookings();
+        verify(bookingService, times(1)).getAllBookings(null, 20);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllBookings_whenCursorIsInvalid_shouldReturn400() throws Exception {
+        when(bookingService.getAllBookings("bad", 20)).thenThrow(new InvalidCursorException("Invalid page cursor"));
+
+        mockMvc.perform(get("/api/bookings").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid page cursor")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportBookings_shouldStreamNdjson() throws Exception {
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(0);
+            out.write("{\"bookingId\":1}\n{\"bookingId\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookingService).exportBookings(any(OutputStream.class));
+
+        // StreamingResponseBody async çalışır -> asyncDispatch ile sonucu bekliyoruz
+        MvcResult result = mockMvc.perform(get("/api/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"bookingId\":1}\n{\"bookingId\":2}\n"));
     }
 
     @Test
@@ -131,14 +173,44 @@ public class BookingControllerTest {
 
     @Test
     void getBookingsByEmail_shouldReturn200() throws Exception {
-        when(bookingService.getBookingsByEmail("ahmet@gmail.com")).thenReturn(List.of(bookingDto1));
+        when(bookingService.getBookingsByEmail("ahmet@gmail.com", "aWQ6MQ", 5))
+                .thenReturn(new CursorPage<>(List.of(bookingDto1), null));
+
+        mockMvc.perform(get("/api/bookings/email/{email}", "ahmet@gmail.com")
+                        .param("cursor", "aWQ6MQ")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].guestEmail", is("ahmet@gmail.com")));
 
-        mockMvc.perform(get("/api/bookings/email/{email}", "ahmet@gmail.com"))
+        verify(bookingService).getBookingsByEmail("ahmet@gmail.com", "aWQ6MQ", 5);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getNightlyOccupancy_shouldParseDates_andReturnNights() throws Exception {
+        NightOccupancy night = new NightOccupancy() {
+            @Override
+            public LocalDate getNight() {
+                return LocalDate.of(2026, 1, 10);
+            }
+
+            @Override
+            public Long getOccupiedRooms() {
+                return 7L;
+            }
+        };
+        when(bookingService.getNightlyOccupancy(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 11)))
+                .thenReturn(List.of(night));
+
+        mockMvc.perform(get("/api/bookings/occupancy")
+                        .param("from", "10-01-2026")
+                        .param("to", "11-01-2026"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$.guestEmail[0]", is("ahmet@gmail.com")));
+                .andExpect(jsonPath("$[0].occupiedRooms", is(7)));
 
-        verify(bookingService).getBookingsByEmail("ahmet@gmail.com");
+        verify(bookingService).getNightlyOccupancy(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 11));
     }
 
     @Test
@@ -209,6 +281,33 @@ public class BookingControllerTest {
         verifyNoInteractions(bookingService);
     }
 
+    @Test
+    void addGroupBooking_whenRejected_shouldReturn409_withPerItemFailures() throws Exception {
+        GroupBookingRequest request = GroupBookingRequest.builder()
+                .guestName("Ahmet")
+                .guestEmail("ahmet@gmail.com")
+                .items(List.of(GroupBookingItem.builder()
+                        .roomId(10L)
+                        .checkInDate(LocalDate.of(2026, 1, 10))
+                        .checkOutDate(LocalDate.of(2026, 1, 12))
+                        .numOfAdults(2)
+                        .build()))
+                .build();
+
+        when(bookingService.addGroupBooking(any(GroupBookingRequest.class))).thenThrow(new GroupBookingFailedException(
+                "Group booking is rejected",
+                List.of(new GroupBookingFailure(0, 10L, "Room is not available for the selected dates"))
+        ));
+
+        mockMvc.perform(post("/api/bookings/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is("Group booking is rejected")))
+                .andExpect(jsonPath("$.failures", hasSize(1)))
+                .andExpect(jsonPath("$.failures[0].roomId", is(10)));
+    }
+
     @Test
     void deleteBooking_shouldReturn200_andMessage() throws Exception {
         Long bookingId = 99L;
@@ -1,8 +1,12 @@
 package org.application.hotelbookingappbe.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.application.hotelbookingappbe.catalog.JsonSnapshot;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.dto.RoomDto;
 import org.application.hotelbookingappbe.exception.GlobalExceptionHandler;
+import org.application.hotelbookingappbe.exception.InvalidCursorException;
+import org.application.hotelbookingappbe.photo.StoredPhoto;
 import org.application.hotelbookingappbe.service.RoomService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +15,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -18,7 +24,10 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -38,6 +47,9 @@ public class RoomControllerTest {
     @MockBean
     private RoomService roomService;
 
+    private static final String PHOTO_KEY = "ab".repeat(32);
+    private static final byte[] PNG_BYTES = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
     private RoomDto roomDto1;
     private RoomDto roomDto2;
 
@@ -87,16 +99,28 @@ public class RoomControllerTest {
 
     @Test
     void getRoomTypes_shouldReturn200() throws Exception {
-        when(roomService.getRoomTypes()).thenReturn(List.of("DELUXE", "STANDARD"));
+        JsonSnapshot snapshot = snapshotOf(List.of("DELUXE", "STANDARD"));
+        when(roomService.getRoomTypesSnapshot()).thenReturn(snapshot);
 
         mockMvc.perform(get("/api/rooms/room-types"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + snapshot.getEtag() + "\""))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0]", is("DELUXE")))
                 .andExpect(jsonPath("$[1]", is("STANDARD")));
 
-        // verify(roomService, times(1)).getRoomTypes(); ---> Alttakiyle aynıdır
-        verify(roomService).getRoomTypes();
+        // verify(roomService, times(1)).getRoomTypesSnapshot(); ---> Alttakiyle aynıdır
+        verify(roomService).getRoomTypesSnapshot();
+    }
+
+    @Test
+    void getRoomTypes_whenEtagMatches_shouldReturn304WithoutBody() throws Exception {
+        JsonSnapshot snapshot = snapshotOf(List.of("DELUXE", "STANDARD"));
+        when(roomService.getRoomTypesSnapshot()).thenReturn(snapshot);
+
+        mockMvc.perform(get("/api/rooms/room-types").header("If-None-Match", "\"" + snapshot.getEtag() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
     }
 
     @Test
@@ -113,53 +137,149 @@ public class RoomControllerTest {
 
     @Test
     void getAllRooms_shouldReturn200_andList() throws Exception {
-        when(roomService.getAllRooms()).thenReturn(List.of(roomDto1, roomDto2));
+        when(roomService.getAllRoomsSnapshot(null, 20)).thenReturn(snapshotOf(new CursorPage<>(List.of(roomDto1, roomDto2), null)));
 
         mockMvc.perform((get("/api/rooms/all-rooms")))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].roomType", is("DELUXE")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].roomType", is("STANDARD")));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.items[0].roomType", is("DELUXE")))
+                .andExpect(jsonPath("$.items[1].id", is(2)))
+                .andExpect(jsonPath("$.items[1].roomType", is("STANDARD")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(roomService).getAllRoomsSnapshot(null, 20);
+    }
+
+    @Test
+    void getAllRooms_whenClientAcceptsGzip_shouldWriteCompressedCopy() throws Exception {
+        List<RoomDto> rooms = Collections.nCopies(50, roomDto1);
+        JsonSnapshot snapshot = snapshotOf(new CursorPage<>(rooms, null));
+        when(roomService.getAllRoomsSnapshot(null, 20)).thenReturn(snapshot);
+
+        mockMvc.perform(get("/api/rooms/all-rooms").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"" + snapshot.getGzipEtag() + "\""))
+                .andExpect(content().bytes(snapshot.getGzip()));
+    }
+
+    @Test
+    void getAllRooms_whenClientAcceptsAnyEncoding_shouldWriteCompressedCopy() throws Exception {
+        JsonSnapshot snapshot = snapshotOf(new CursorPage<>(Collections.nCopies(50, roomDto1), null));
+        when(roomService.getAllRoomsSnapshot(null, 20)).thenReturn(snapshot);
+
+        mockMvc.perform(get("/api/rooms/all-rooms").header("Accept-Encoding", "br;q=1.0, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(snapshot.getGzip()));
+    }
 
-        verify(roomService).getAllRooms();
+    @Test
+    void getAllRooms_whenClientRefusesGzip_shouldWriteJsonCopy() throws Exception {
+        JsonSnapshot snapshot = snapshotOf(new CursorPage<>(Collections.nCopies(50, roomDto1), null));
+        when(roomService.getAllRoomsSnapshot(null, 20)).thenReturn(snapshot);
+
+        // q=0 gzip'i reddeder, "*" de onu geri açmaz; benzer isimli token'lar gzip sayılmaz
+        for (String acceptEncoding : List.of("gzip;q=0, deflate", "*, GZIP; Q=0", "x-gzip2, mygzip", "gzip;q=abc")) {
+            mockMvc.perform(get("/api/rooms/all-rooms").header("Accept-Encoding", acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Content-Encoding"))
+                    .andExpect(header().string("ETag", "\"" + snapshot.getEtag() + "\""))
+                    .andExpect(content().bytes(snapshot.getJson()));
+        }
     }
 
     @Test
     void getRoomPhotoByRoomId_whenPhotoExists_shouldReturn200() throws Exception {
-        byte[] photoBytes = "fake-image-content".getBytes();
-
-        when(roomService.getRoomPhotoByRoomId(1L)).thenReturn(photoBytes);
+        when(roomService.getRoomPhotoKey(1L)).thenReturn(PHOTO_KEY);
+        when(roomService.getPhoto(PHOTO_KEY, null)).thenReturn(Optional.of(new StoredPhoto(PHOTO_KEY, new ByteArrayResource(PNG_BYTES))));
 
+        // Content-Type dosyanın ilk byte'larından bulunur (PNG)
         mockMvc.perform(get("/api/rooms/room-photo/{roomId}", 1L))
                 .andExpect(status().isOk())
-                .andExpect(header().string("Content-Type", MediaType.IMAGE_JPEG_VALUE))
-                .andExpect(content().bytes(photoBytes));
+                .andExpect(header().string("Content-Type", MediaType.IMAGE_PNG_VALUE))
+                .andExpect(header().string("ETag", "\"" + PHOTO_KEY + "\""))
+                .andExpect(header().string("Cache-Control", "max-age=600, public"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().bytes(PNG_BYTES));
+
+        verify(roomService).getRoomPhotoKey(1L);
+    }
+
+    @Test
+    void getRoomPhotoByRoomId_whenETagMatches_shouldReturn304WithoutReadingPhoto() throws Exception {
+        Resource photo = mock(Resource.class);
+        when(roomService.getRoomPhotoKey(1L)).thenReturn(PHOTO_KEY);
+        when(roomService.getPhoto(PHOTO_KEY, 200)).thenReturn(Optional.of(new StoredPhoto(PHOTO_KEY + "-w200", photo)));
+
+        mockMvc.perform(get("/api/rooms/room-photo/{roomId}", 1L)
+                        .param("size", "200")
+                        .header("If-None-Match", "\"" + PHOTO_KEY + "-w200\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        // 304: dosyanın içeriği hiç okunmaz
+        verifyNoInteractions(photo);
+    }
+
+    @Test
+    void getRoomPhotoByRoomId_whenRangeRequested_shouldReturn206WithPartialContent() throws Exception {
+        when(roomService.getRoomPhotoKey(1L)).thenReturn(PHOTO_KEY);
+        when(roomService.getPhoto(PHOTO_KEY, null)).thenReturn(Optional.of(new StoredPhoto(PHOTO_KEY, new ByteArrayResource(PNG_BYTES))));
+
+        mockMvc.perform(get("/api/rooms/room-photo/{roomId}", 1L)
+                        .header("Range", "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-3/" + PNG_BYTES.length))
+                .andExpect(content().bytes(Arrays.copyOf(PNG_BYTES, 4)));
+    }
 
-        verify(roomService).getRoomPhotoByRoomId(1L);
+    @Test
+    void getRoomPhotoByRoomId_whenRoomHasNoPhoto_shouldReturn404() throws Exception {
+        when(roomService.getRoomPhotoKey(1L)).thenReturn(null);
+
+        mockMvc.perform(get("/api/rooms/room-photo/{roomId}", 1L))
+                .andExpect(status().isNotFound());
     }
 
     @Test
     void getAvailableRooms_shouldParseDatesWithInitBinder() throws Exception {
-        when(roomService.getAvailableRooms(any(LocalDate.class), any(LocalDate.class), eq("DELUXE")))
-                .thenReturn(List.of(roomDto1));
+        when(roomService.getAvailableRooms(any(LocalDate.class), any(LocalDate.class), eq("DELUXE"), isNull(), eq(20)))
+                .thenReturn(new CursorPage<>(List.of(roomDto1), "bmV4dA"));
 
         mockMvc.perform(get("/api/rooms/available-rooms")
                         .param("checkInDate", "10-01-2026")
                         .param("checkOutDate", "12-01-2026")
                         .param("roomType", "DELUXE"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].roomType", is("DELUXE")));
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].roomType", is("DELUXE")))
+                .andExpect(jsonPath("$.nextCursor", is("bmV4dA")));
 
         verify(roomService).getAvailableRooms(
                 eq(LocalDate.of(2026, 1, 10)),
                 eq(LocalDate.of(2026, 1, 12)),
-                eq("DELUXE")
+                eq("DELUXE"),
+                isNull(),
+                eq(20)
         );
     }
 
+    @Test
+    void getAvailableRooms_whenCursorInvalid_shouldReturn400() throws Exception {
+        when(roomService.getAvailableRooms(any(LocalDate.class), any(LocalDate.class), eq("DELUXE"), eq("broken"), eq(20)))
+                .thenThrow(new InvalidCursorException("Invalid page cursor"));
+
+        mockMvc.perform(get("/api/rooms/available-rooms")
+                        .param("checkInDate", "10-01-2026")
+                        .param("checkOutDate", "12-01-2026")
+                        .param("roomType", "DELUXE")
+                        .param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void updateRoom_shouldReturn200() throws Exception {
@@ -202,4 +322,8 @@ public class RoomControllerTest {
 
         verify(roomService).deleteRoom(1L);
     }
-}
\ No newline at end of file
+
+    private JsonSnapshot snapshotOf(Object body) throws Exception {
+        return JsonSnapshot.of(new ObjectMapper().writeValueAsBytes(body), true);
+    }
+}
@@ -0,0 +1,88 @@
+package org.application.hotelbookingappbe.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomLockStripesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomLockStripes roomLocks;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        roomLocks = new RoomLockStripes(meterRegistry, 64);
+    }
+
+    @Test
+    void withRoomLock_sameRoom_shouldNeverRunConcurrently() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> roomLocks.withRoomLock(10L, () -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    return inside.decrementAndGet();
+                }));
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, maxInside.get());
+        assertEquals(200, meterRegistry.get("booking.room_lock.wait").timer().count());
+    }
+
+    @Test
+    void withRoomLock_whenStripeIsHeld_shouldCountContention() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> holder = executor.submit(() -> roomLocks.withRoomLock(10L, () -> {
+                held.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+            new Thread(() -> {
+                sleepQuietly();
+                release.countDown();
+            }).start();
+
+            assertEquals("booked", roomLocks.withRoomLock(10L, () -> "booked"));
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1.0, meterRegistry.get("booking.room_lock.contended").counter().count());
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.application.hotelbookingappbe.migration;
+
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoomNightMigrationTest {
+
+    @Mock
+    private SchemaMigrations schemaMigrations;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private RoomNightRepository roomNightRepository;
+
+    @InjectMocks
+    private RoomNightMigration roomNightMigration;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void afterSingletonsInstantiated_whenAlreadyApplied_shouldNotReadBookings() {
+        when(schemaMigrations.runOnce(eq("room_night_backfill"), any())).thenReturn(false);
+
+        roomNightMigration.afterSingletonsInstantiated();
+
+        verifyNoInteractions(bookingRepository, roomNightRepository);
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldRunBackfillUnderTheMarker() {
+        when(schemaMigrations.runOnce(eq("room_night_backfill"), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        when(bookingRepository.findStaysBetween(any(), any())).thenReturn(List.of());
+
+        roomNightMigration.afterSingletonsInstantiated();
+
+        verify(bookingRepository).findStaysBetween(eq(today), any());
+    }
+
+    @Test
+    void backfill_shouldWriteRemainingNights_andSkipBookingsAlreadyInTheLedger() {
+        BookingStay ongoing = stay(1L, 10L, today.minusDays(2), today.plusDays(3));
+        BookingStay alreadyWritten = stay(2L, 11L, today.plusDays(5), today.plusDays(7));
+        BookingStay overlapping = stay(3L, 10L, today.plusDays(1), today.plusDays(4));
+        BookingStay future = stay(4L, 12L, today.plusDays(8), today.plusDays(9));
+        when(bookingRepository.findStaysBetween(any(), any())).thenReturn(List.of(ongoing, alreadyWritten, overlapping, future));
+        when(roomNightRepository.existsByBookingId(anyLong())).thenAnswer(invocation -> invocation.getArgument(0).equals(2L));
+        lenient().doThrow(new DuplicateKeyException("Duplicate entry"))
+                .when(roomNightRepository).insertNights(10L, 3L, today.plusDays(1), today.plusDays(4));
+
+        roomNightMigration.backfill();
+
+        // Geçmiş geceler yazılmaz, çakışan booking'den sonrakiler de backfill edilir
+        verify(roomNightRepository).insertNights(10L, 1L, today, today.plusDays(3));
+        verify(roomNightRepository, never()).insertNights(eq(11L), eq(2L), any(), any());
+        verify(roomNightRepository).insertNights(12L, 4L, today.plusDays(8), today.plusDays(9));
+    }
+
+    private static BookingStay stay(Long bookingId, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        BookingStay stay = mock(BookingStay.class);
+        lenient().when(stay.getBookingId()).thenReturn(bookingId);
+        lenient().when(stay.getRoomId()).thenReturn(roomId);
+        when(stay.getCheckInDate()).thenReturn(checkIn);
+        when(stay.getCheckOutDate()).thenReturn(checkOut);
+        return stay;
+    }
+}
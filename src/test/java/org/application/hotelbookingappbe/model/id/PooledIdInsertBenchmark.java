@@ -0,0 +1,124 @@
+package org.application.hotelbookingappbe.model.id;
+
+import jakarta.persistence.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    Insert başına maliyet, tek transaction'da 50 satır (toplu oda ekleme / group booking):
+    - identity: GenerationType.IDENTITY, her persist anında tek satırlık INSERT + generated key, batch yapılamaz
+    - auto: eski mapping (GenerationType.AUTO), MySQL'de *_seq tablosundan id alınır
+    - pooled: @PooledId, blok başına bir sequence round trip'i, insert'ler tek JDBC batch'inde (rewriteBatchedStatements
+      ile multi-row INSERT) gider
+    - Uygulamanın ayarları kullanılır: batch_size=50, order_inserts, hotel.id.block-size=50
+
+    Canlı bir MySQL gerekir (varsayılan: application.properties'teki DB), tablolar benchmark sonunda drop edilir.
+    Çalıştırma:
+    mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+        -Dexec.args="-cp %classpath org.openjdk.jmh.Main PooledIdInsertBenchmark -p url=jdbc:mysql://... -p username=... -p password=..."
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledIdInsertBenchmark {
+    private static final int ROWS = 50;
+
+    @Param("jdbc:mysql://localhost:3312/hotel-booking-db?rewriteBatchedStatements=true")
+    public String url;
+
+    @Param("user")
+    public String username;
+
+    @Param("123")
+    public String password;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityBooking.class)
+                .addAnnotatedClass(AutoBooking.class)
+                .addAnnotatedClass(PooledBooking.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, username)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, password)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(ROWS))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(PooledIdGenerator.BLOCK_SIZE_SETTING, String.valueOf(ROWS))
+                .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identity() {
+        insert(IdentityBooking::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void auto() {
+        insert(AutoBooking::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooled() {
+        insert(PooledBooking::new);
+    }
+
+    private void insert(Supplier<? extends BenchBooking> rows) {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(rows.get());
+            }
+        });
+    }
+
+    // Same columns as a booking's stay, only the id mapping differs
+    @MappedSuperclass
+    public abstract static class BenchBooking {
+        private String guestEmail = "ahmet@mail.com";
+        private LocalDate checkInDate = LocalDate.of(2026, 1, 10);
+        private LocalDate checkOutDate = LocalDate.of(2026, 1, 12);
+    }
+
+    @Entity
+    @Table(name = "bench_identity_booking")
+    public static class IdentityBooking extends BenchBooking {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+    }
+
+    @Entity
+    @Table(name = "bench_auto_booking")
+    public static class AutoBooking extends BenchBooking {
+        @Id
+        @GeneratedValue(strategy = GenerationType.AUTO)
+        private Long id;
+    }
+
+    @Entity
+    @Table(name = "bench_pooled_booking")
+    public static class PooledBooking extends BenchBooking {
+        @Id
+        @PooledId(sequenceName = "bench_pooled_booking_seq")
+        private Long id;
+    }
+}
@@ -0,0 +1,65 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilePhotoStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FilePhotoStore photoStore;
+
+    @BeforeEach
+    void init() {
+        photoStore = new FilePhotoStore(root);
+    }
+
+    @Test
+    void stageAndCommit_shouldStoreContentUnderItsHash() throws IOException {
+        StagedPhoto staged = photoStore.stage(new ByteArrayInputStream("photo".getBytes()));
+
+        // sha256("photo")
+        assertEquals("55c64d0fcd6f9d5f7c828093857e3fdfda68478bb4e9bd24d481ef391c7804e8", staged.getKey());
+        assertTrue(photoStore.open(staged.getKey()).isEmpty());
+
+        assertTrue(photoStore.commit(staged));
+        assertTrue(Files.exists(root.resolve(staged.getKey().substring(0, 2)).resolve(staged.getKey())));
+        assertArrayEquals("photo".getBytes(), photoStore.open(staged.getKey()).orElseThrow().getContentAsByteArray());
+        assertFalse(Files.exists(staged.getFile()));
+    }
+
+    @Test
+    void commit_whenSameContentAlreadyStored_shouldDropStagedCopy() throws IOException {
+        StagedPhoto first = photoStore.stage(new ByteArrayInputStream("photo".getBytes()));
+        StagedPhoto second = photoStore.stage(new ByteArrayInputStream("photo".getBytes()));
+        photoStore.commit(first);
+
+        assertEquals(first.getKey(), second.getKey());
+        assertFalse(photoStore.commit(second));
+        assertFalse(Files.exists(second.getFile()));
+    }
+
+    @Test
+    void delete_shouldRemoveContent() throws IOException {
+        StagedPhoto staged = photoStore.stage(new ByteArrayInputStream("photo".getBytes()));
+        photoStore.commit(staged);
+
+        photoStore.delete(staged.getKey());
+
+        assertTrue(photoStore.open(staged.getKey()).isEmpty());
+    }
+
+    @Test
+    void open_whenKeyIsNotAHash_shouldRejectIt() {
+        assertThrows(IllegalArgumentException.class, () -> photoStore.open("../../etc/passwd"));
+    }
+}
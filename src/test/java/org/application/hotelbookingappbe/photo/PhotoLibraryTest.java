@@ -0,0 +1,190 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.application.hotelbookingappbe.model.PhotoBlob;
+import org.application.hotelbookingappbe.repository.PhotoBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PhotoLibraryTest {
+
+    private static final String PHOTO_KEY = "ab".repeat(32);
+
+    @Mock
+    private PhotoStore photoStore;
+
+    @Mock
+    private PhotoBlobRepository photoBlobRepository;
+
+    @Mock
+    private PhotoVariantPipeline photoVariants;
+
+    private PhotoLibrary photoLibrary;
+
+    @BeforeEach
+    void init() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        photoLibrary = new PhotoLibrary(photoStore, photoBlobRepository, photoVariants, transactionTemplate);
+    }
+
+    @Test
+    void acquire_whenContentIsNew_shouldCountReferenceThenStoreAndQueueVariants() throws IOException {
+        InputStream upload = new ByteArrayInputStream("photo".getBytes());
+        StagedPhoto staged = new StagedPhoto(PHOTO_KEY, Path.of("staging", "upload.tmp"));
+        when(photoStore.stage(upload)).thenReturn(staged);
+        when(photoStore.commit(staged)).thenReturn(true);
+
+        assertEquals(PHOTO_KEY, photoLibrary.acquire(upload));
+
+        // Önce row lock (ref_count), sonra dosya
+        InOrder inOrder = inOrder(photoBlobRepository, photoStore);
+        inOrder.verify(photoBlobRepository).acquire(PHOTO_KEY);
+        inOrder.verify(photoStore).commit(staged);
+        verify(photoVariants).submit(PHOTO_KEY);
+    }
+
+    @Test
+    void acquire_whenSameContentAlreadyStored_shouldOnlyCountReference() throws IOException {
+        InputStream upload = new ByteArrayInputStream("photo".getBytes());
+        StagedPhoto staged = new StagedPhoto(PHOTO_KEY, Path.of("staging", "upload.tmp"));
+        when(photoStore.stage(upload)).thenReturn(staged);
+        when(photoStore.commit(staged)).thenReturn(false);
+
+        photoLibrary.acquire(upload);
+
+        verify(photoBlobRepository).acquire(PHOTO_KEY);
+        verify(photoStore).discard(staged);
+        verifyNoInteractions(photoVariants);
+    }
+
+    @Test
+    void acquire_insideTransaction_shouldStoreFileOnlyAfterCommit() throws IOException {
+        InputStream upload = new ByteArrayInputStream("photo".getBytes());
+        StagedPhoto staged = new StagedPhoto(PHOTO_KEY, Path.of("staging", "upload.tmp"));
+        when(photoStore.stage(upload)).thenReturn(staged);
+        when(photoStore.commit(staged)).thenReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            photoLibrary.acquire(upload);
+
+            // Room transaction henüz commit olmadı: dosya key'e taşınmamalı
+            verify(photoStore, never()).commit(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> {
+                sync.afterCommit();
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            });
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        InOrder inOrder = inOrder(photoStore);
+        inOrder.verify(photoStore).commit(staged);
+        inOrder.verify(photoStore).discard(staged);
+        verify(photoVariants).submit(PHOTO_KEY);
+    }
+
+    @Test
+    void acquire_whenTransactionRollsBack_shouldDiscardStagedFile() throws IOException {
+        InputStream upload = new ByteArrayInputStream("photo".getBytes());
+        StagedPhoto staged = new StagedPhoto(PHOTO_KEY, Path.of("staging", "upload.tmp"));
+        when(photoStore.stage(upload)).thenReturn(staged);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            photoLibrary.acquire(upload);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(photoStore, never()).commit(any());
+        verify(photoStore).discard(staged);
+        verifyNoInteractions(photoVariants);
+    }
+
+    @Test
+    void release_whenLastReferenceIsGone_shouldDeleteFileAndRow() {
+        PhotoBlob blob = new PhotoBlob(PHOTO_KEY, 0);
+        when(photoBlobRepository.release(PHOTO_KEY)).thenReturn(1);
+        when(photoBlobRepository.findUnreferencedForUpdate(PHOTO_KEY)).thenReturn(Optional.of(blob));
+
+        photoLibrary.release(PHOTO_KEY);
+
+        verify(photoStore).delete(PHOTO_KEY);
+        verify(photoBlobRepository).delete(blob);
+    }
+
+    @Test
+    void release_whenPhotoIsStillReferenced_shouldKeepFile() {
+        when(photoBlobRepository.release(PHOTO_KEY)).thenReturn(1);
+        when(photoBlobRepository.findUnreferencedForUpdate(PHOTO_KEY)).thenReturn(Optional.empty());
+
+        photoLibrary.release(PHOTO_KEY);
+
+        verify(photoStore, never()).delete(any());
+    }
+
+    @Test
+    void sweep_shouldCollectEveryUnreferencedPhoto() {
+        PhotoBlob blob = new PhotoBlob(PHOTO_KEY, 0);
+        when(photoBlobRepository.findUnreferencedKeys()).thenReturn(List.of(PHOTO_KEY));
+        when(photoBlobRepository.findUnreferencedForUpdate(PHOTO_KEY)).thenReturn(Optional.of(blob));
+
+        photoLibrary.sweep();
+
+        verify(photoStore).delete(PHOTO_KEY);
+        verify(photoBlobRepository).delete(blob);
+    }
+
+    @Test
+    void find_whenVariantExists_shouldReturnVariantWithItsOwnETag() {
+        Resource variant = new ByteArrayResource("small".getBytes());
+        when(photoVariants.widthFor(150)).thenReturn(OptionalInt.of(200));
+        when(photoStore.openVariant(PHOTO_KEY, 200)).thenReturn(Optional.of(variant));
+
+        StoredPhoto photo = photoLibrary.find(PHOTO_KEY, 150).orElseThrow();
+
+        assertEquals(PHOTO_KEY + "-w200", photo.getEtag());
+        assertSame(variant, photo.getResource());
+        verify(photoStore, never()).open(any());
+    }
+
+    @Test
+    void find_whenVariantNotGeneratedYet_shouldFallBackToOriginal() {
+        Resource original = new ByteArrayResource("original".getBytes());
+        when(photoVariants.widthFor(600)).thenReturn(OptionalInt.of(600));
+        when(photoStore.openVariant(PHOTO_KEY, 600)).thenReturn(Optional.empty());
+        when(photoStore.open(PHOTO_KEY)).thenReturn(Optional.of(original));
+
+        StoredPhoto photo = photoLibrary.find(PHOTO_KEY, 600).orElseThrow();
+
+        assertEquals(PHOTO_KEY, photo.getEtag());
+        assertSame(original, photo.getResource());
+    }
+}
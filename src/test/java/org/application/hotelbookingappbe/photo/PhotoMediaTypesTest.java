@@ -0,0 +1,23 @@
+package org.application.hotelbookingappbe.photo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhotoMediaTypesTest {
+
+    @Test
+    void detect_shouldRecognizeImageMagicNumbers() {
+        assertEquals(MediaType.IMAGE_JPEG, PhotoMediaTypes.detect(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals(MediaType.IMAGE_PNG, PhotoMediaTypes.detect(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}));
+        assertEquals(MediaType.IMAGE_GIF, PhotoMediaTypes.detect("GIF89a".getBytes()));
+        assertEquals("image/webp", PhotoMediaTypes.detect("RIFF\0\0\0\0WEBP".getBytes()).toString());
+    }
+
+    @Test
+    void detect_whenUnknownOrTooShort_shouldReturnOctetStream() {
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, PhotoMediaTypes.detect("<html>".getBytes()));
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, PhotoMediaTypes.detect(new byte[]{(byte) 0xFF}));
+    }
+}
@@ -0,0 +1,110 @@
+package org.application.hotelbookingappbe.photo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhotoVariantPipelineTest {
+
+    @TempDir
+    Path root;
+
+    private FilePhotoStore photoStore;
+    private SimpleMeterRegistry meterRegistry;
+    private PhotoVariantPipeline pipeline;
+
+    @BeforeEach
+    void init() {
+        photoStore = new FilePhotoStore(root);
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new PhotoVariantPipeline(photoStore, meterRegistry, new int[]{1200, 200, 600}, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void generate_shouldWriteOnlyVariantsNarrowerThanOriginal() throws IOException {
+        String key = store(png(800, 400));
+
+        pipeline.generate(key);
+
+        assertEquals(200, widthOf(key, 200));
+        assertEquals(600, widthOf(key, 600));
+        // 1200 > 800: büyütme yapılmaz, orijinal servis edilir
+        assertTrue(photoStore.openVariant(key, 1200).isEmpty());
+    }
+
+    @Test
+    void generate_whenOriginalIsLarge_shouldDecodeSubsampledAndKeepExactWidths() throws IOException {
+        // 5000 px -> 2 adımda subsample edilerek 2500 px decode edilir
+        String key = store(png(5000, 100));
+
+        pipeline.generate(key);
+
+        assertEquals(1200, widthOf(key, 1200));
+        assertEquals(200, widthOf(key, 200));
+    }
+
+    @Test
+    void generate_whenContentIsNotAnImage_shouldSkipVariants() throws IOException {
+        String key = store("not an image".getBytes());
+
+        pipeline.generate(key);
+
+        assertTrue(photoStore.openVariant(key, 200).isEmpty());
+    }
+
+    @Test
+    void widthFor_shouldPickSmallestVariantThatIsWideEnough() {
+        assertEquals(OptionalInt.of(200), pipeline.widthFor(150));
+        assertEquals(OptionalInt.of(600), pipeline.widthFor(600));
+        assertEquals(OptionalInt.of(1200), pipeline.widthFor(601));
+        assertTrue(pipeline.widthFor(2000).isEmpty());
+        assertTrue(pipeline.widthFor(null).isEmpty());
+    }
+
+    @Test
+    void delete_shouldRemoveVariantsWithOriginal() throws IOException {
+        String key = store(png(800, 400));
+        pipeline.generate(key);
+
+        photoStore.delete(key);
+
+        assertTrue(photoStore.open(key).isEmpty());
+        assertTrue(photoStore.openVariant(key, 200).isEmpty());
+    }
+
+    private String store(byte[] content) throws IOException {
+        StagedPhoto staged = photoStore.stage(new ByteArrayInputStream(content));
+        photoStore.commit(staged);
+        return staged.getKey();
+    }
+
+    private int widthOf(String key, int width) throws IOException {
+        try (InputStream in = photoStore.openVariant(key, width).orElseThrow().getInputStream()) {
+            return ImageIO.read(in).getWidth();
+        }
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
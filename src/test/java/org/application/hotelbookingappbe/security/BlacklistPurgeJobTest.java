@@ -0,0 +1,32 @@
+package org.application.hotelbookingappbe.security;
+
+import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
+import org.application.hotelbookingappbe.security.jwt.BlacklistPurgeJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BlacklistPurgeJobTest {
+
+    @Mock
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    @Test
+    void purge_shouldDeleteInBatches_untilBatchIsNotFull() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        BlacklistPurgeJob purgeJob = new BlacklistPurgeJob(blacklistedTokenRepository, transactionTemplate, 100);
+        when(blacklistedTokenRepository.deleteExpired(any(), eq(100))).thenReturn(100, 100, 37);
+
+        purgeJob.purge();
+
+        verify(blacklistedTokenRepository, times(3)).deleteExpired(any(), eq(100));
+    }
+}
@@ -0,0 +1,68 @@
+package org.application.hotelbookingappbe.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.exception.PasswordHashingBusyException;
+import org.application.hotelbookingappbe.security.password.BoundedPasswordEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Testlerin hızlı olması için en düşük BCrypt cost'u
+        passwordEncoder = new BoundedPasswordEncoder(meterRegistry, 4, 2, 8, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void shutdown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_shouldRunOnPool_andRecordLatency() {
+        String encoded = passwordEncoder.encode("secret");
+
+        assertTrue(passwordEncoder.matches("secret", encoded));
+        assertFalse(passwordEncoder.matches("wrong", encoded));
+        assertEquals(1, meterRegistry.get("security.password.hashing").tags("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("security.password.hashing").tags("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_whenStrengthIncreased_shouldRequestRehash() {
+        String encoded = passwordEncoder.encode("secret");
+        BoundedPasswordEncoder stronger = new BoundedPasswordEncoder(new SimpleMeterRegistry(), 5, 1, 1, Duration.ofSeconds(5));
+
+        try {
+            assertFalse(passwordEncoder.upgradeEncoding(encoded));
+            assertTrue(stronger.upgradeEncoding(encoded));
+            assertTrue(stronger.matches("secret", encoded));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    void encode_whenPoolCannotAnswerInTime_shouldFailFast() {
+        // Cost 14 tek hash için yüzlerce ms sürer, 1 ms bekleme limiti aşılır
+        BoundedPasswordEncoder saturated = new BoundedPasswordEncoder(meterRegistry, 14, 1, 1, Duration.ofMillis(1));
+
+        try {
+            PasswordHashingBusyException ex = assertThrows(PasswordHashingBusyException.class, () -> saturated.encode("secret"));
+            assertEquals(1, ex.getRetryAfterSeconds());
+            assertEquals(1.0, meterRegistry.get("security.password.rejected").counter().count());
+        } finally {
+            saturated.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.application.hotelbookingappbe.security;
+
+import org.application.hotelbookingappbe.security.throttle.ClientAddressResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientAddressResolverTest {
+
+    private final ClientAddressResolver behindProxies =
+            new ClientAddressResolver(List.of("10.0.0.0/8", "192.168.1.10"), "X-Forwarded-For");
+
+    @Test
+    void resolve_whenNoTrustedProxies_shouldIgnoreForwardedHeader() {
+        ClientAddressResolver direct = new ClientAddressResolver(List.of(), "X-Forwarded-For");
+
+        // Client kendi header'ını uydurup başka bir IP'nin bucket'ına geçemez
+        assertEquals("203.0.113.7", direct.resolve(request("203.0.113.7", "198.51.100.1")));
+    }
+
+    @Test
+    void resolve_whenPeerIsTrustedProxy_shouldUseFirstUntrustedHopFromTheRight() {
+        // Client soldaki girdiyi uydurdu, 203.0.113.7'yi bizim proxy'miz ekledi
+        assertEquals("203.0.113.7", behindProxies.resolve(request("10.0.0.5", "198.51.100.1, 203.0.113.7, 192.168.1.10")));
+    }
+
+    @Test
+    void resolve_whenHeaderSentOverSeveralLines_shouldReadThemInOrder() {
+        MockHttpServletRequest request = request("10.0.0.5", "198.51.100.1");
+        request.addHeader("X-Forwarded-For", "203.0.113.9, 10.1.2.3");
+
+        assertEquals("203.0.113.9", behindProxies.resolve(request));
+    }
+
+    @Test
+    void resolve_whenPeerIsNotTrusted_shouldUsePeerAddress() {
+        assertEquals("198.51.100.20", behindProxies.resolve(request("198.51.100.20", "203.0.113.7")));
+    }
+
+    @Test
+    void resolve_whenTrustedProxySendsNoHeader_shouldUsePeerAddress() {
+        assertEquals("10.0.0.5", behindProxies.resolve(request("10.0.0.5", null)));
+    }
+
+    @Test
+    void resolve_whenHopIsNotAnAddress_shouldTreatItAsTheClient() {
+        assertEquals("unknown", behindProxies.resolve(request("10.0.0.5", "198.51.100.1, unknown")));
+    }
+
+    private static MockHttpServletRequest request(String peer, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(peer);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
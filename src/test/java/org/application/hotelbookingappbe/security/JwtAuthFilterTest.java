@@ -4,6 +4,8 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletResponse;
 import org.application.hotelbookingappbe.security.jwt.JwtAuthFilter;
 import org.application.hotelbookingappbe.security.jwt.JwtUtils;
+import org.application.hotelbookingappbe.security.jwt.VerifiedToken;
+import org.application.hotelbookingappbe.security.user.HotelUserDetails;
 import org.application.hotelbookingappbe.security.user.HotelUserDetailsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,13 +15,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -56,8 +62,7 @@ public class JwtAuthFilterTest {
         MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = mock(FilterChain.class);
 
-        when(jwtUtils.validateJwtToken("valid-token")).thenReturn(true);
-        when(jwtUtils.getUsernameFromJwtToken("valid-token")).thenReturn("ahmet@mail.com");
+        when(jwtUtils.verify("valid-token")).thenReturn(Optional.of(verifiedToken("ahmet@mail.com")));
 
         // Spring Security UserDetails implementasyonu (basit)
         UserDetails userDetails = new User("ahmet@mail.com", "encoded", Collections.emptyList());
@@ -96,12 +101,12 @@ public class JwtAuthFilterTest {
         MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = mock(FilterChain.class);
 
-        when(jwtUtils.validateJwtToken("invalid")).thenReturn(false);
+        when(jwtUtils.verify("invalid")).thenReturn(Optional.empty());
 
         jwtAuthFilter.doFilter(request, response, chain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
-        verify(jwtUtils).validateJwtToken("invalid");
+        verify(jwtUtils).verify("invalid");
         verify(chain).doFilter(request, response);
         verifyNoInteractions(hotelUserDetailsService); // token invalid -> username fetch edilmeyecek
     }
@@ -114,8 +119,7 @@ public class JwtAuthFilterTest {
         MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = mock(FilterChain.class);
 
-        when(jwtUtils.validateJwtToken("valid-token")).thenReturn(true);
-        when(jwtUtils.getUsernameFromJwtToken("valid-token")).thenReturn("missing@mail.com");
+        when(jwtUtils.verify("valid-token")).thenReturn(Optional.of(verifiedToken("missing@mail.com")));
 
         when(hotelUserDetailsService.loadUserByUsername("missing@mail.com"))
                 .thenThrow(new UsernameNotFoundException("User not found"));
@@ -129,5 +133,32 @@ public class JwtAuthFilterTest {
         // burada chain.doFilter çağrılmamalı (return ile çıkılıyor)
         verify(chain, never()).doFilter(any(), any());
     }
-}
 
+    @Test
+    void doFilterInternal_whenStatelessPrincipal_shouldBuildPrincipalFromClaims_withoutUserLookup() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessPrincipal", true);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer valid-token");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        when(jwtUtils.verify("valid-token")).thenReturn(Optional.of(verifiedToken("ahmet@mail.com")));
+
+        jwtAuthFilter.doFilter(request, response, chain);
+
+        HotelUserDetails principal = (HotelUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(5L, principal.getId());
+        assertEquals("ahmet@mail.com", principal.getUsername());
+        assertEquals(List.of("ROLE_USER"), principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+
+        verify(chain).doFilter(request, response);
+        verifyNoInteractions(hotelUserDetailsService);
+    }
+
+    private static VerifiedToken verifiedToken(String username) {
+        Instant now = Instant.now();
+        return new VerifiedToken(username, 5L, List.of("ROLE_USER"), now, now.plusSeconds(60), 0);
+    }
+}
@@ -1,23 +1,37 @@
 package org.application.hotelbookingappbe.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
+import org.application.hotelbookingappbe.security.jwt.BlacklistedTokenMigration;
 import org.application.hotelbookingappbe.security.jwt.JwtUtils;
+import org.application.hotelbookingappbe.security.jwt.JwtVerifier;
+import org.application.hotelbookingappbe.repository.UserRepository;
+import org.application.hotelbookingappbe.security.jwt.RevokedTokens;
+import org.application.hotelbookingappbe.security.jwt.TokenEpochs;
+import org.application.hotelbookingappbe.security.jwt.TokenHashes;
+import org.application.hotelbookingappbe.security.jwt.VerifiedToken;
 import org.application.hotelbookingappbe.security.user.HotelUserDetails;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.application.hotelbookingappbe.model.BlacklistedToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,9 +40,13 @@ public class JwtUtilsTest {
     @Mock
     private BlacklistedTokenRepository blacklistedTokenRepository;
 
-    @InjectMocks
+    @Mock
+    private UserRepository userRepository;
+
     private JwtUtils jwtUtils;
 
+    private TokenEpochs tokenEpochs;
+
     private Authentication authentication;
 
     @BeforeEach
@@ -48,8 +66,14 @@ public class JwtUtilsTest {
         byte[] raw = "01234567890123456789012345678901".getBytes(StandardCharsets.UTF_8); // 32 bytes
         String base64Secret = Base64.getEncoder().encodeToString(raw);
 
-        // @Value alanlarını testte manuel set ediyoruz
-        ReflectionTestUtils.setField(jwtUtils, "secret", base64Secret);
+        // Key ve parser JwtVerifier'da bir kez oluşturulur, revocation kontrolü bellekte yapılır
+        JwtVerifier jwtVerifier = new JwtVerifier(base64Secret, 100, new SimpleMeterRegistry());
+        tokenEpochs = new TokenEpochs(userRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        jwtUtils = new JwtUtils(blacklistedTokenRepository, jwtVerifier,
+                new RevokedTokens(blacklistedTokenRepository, mock(BlacklistedTokenMigration.class), 1000), tokenEpochs);
+        lenient().when(userRepository.findTokenEpochById(5L)).thenReturn(Optional.of(0));
+
+        // @Value alanını testte manuel set ediyoruz
         ReflectionTestUtils.setField(jwtUtils, "expirationTimeMs", 60_000); // 1 dakika
     }
 
@@ -74,27 +98,92 @@ public class JwtUtilsTest {
     void validateJwtToken_whenNotBlacklistedAndValid_shouldReturnTrue() {
         String token = jwtUtils.generateJwtToken(authentication);
 
-        when(blacklistedTokenRepository.existsByToken(token)).thenReturn(false);
-
         Boolean valid = jwtUtils.validateJwtToken(token);
 
         assertTrue(valid);
 
-        verify(blacklistedTokenRepository).existsByToken(token);
+        // Revoke edilmemiş token için DB'ye hiç gidilmez
+        verifyNoInteractions(blacklistedTokenRepository);
     }
 
     @Test
     void validateJwtToken_whenBlacklisted_shouldReturnFalse() {
         String token = jwtUtils.generateJwtToken(authentication);
 
-        when(blacklistedTokenRepository.existsByToken(token)).thenReturn(true);
+        jwtUtils.invalidateToken(token);
 
         Boolean valid = jwtUtils.validateJwtToken(token);
 
         assertFalse(valid);
 
-        // blacklist true ise parse etmeye bile gerek yok; metot direkt false döner
-        verify(blacklistedTokenRepository).existsByToken(token);
+        verify(blacklistedTokenRepository).save(any(BlacklistedToken.class));
+    }
+
+    @Test
+    void invalidateToken_shouldStoreHashAndExpiry_once() {
+        String token = jwtUtils.generateJwtToken(authentication);
+        ArgumentCaptor<BlacklistedToken> saved = ArgumentCaptor.forClass(BlacklistedToken.class);
+
+        jwtUtils.invalidateToken(token);
+        jwtUtils.invalidateToken(token);
+
+        verify(blacklistedTokenRepository).save(saved.capture());
+        assertArrayEquals(TokenHashes.sha256(token), saved.getValue().getTokenHash());
+        // exp claim'i saniye hassasiyetindedir, token 1 dakika geçerli
+        assertEquals(Instant.now().plusSeconds(60).getEpochSecond(), saved.getValue().getExpiresAt().getEpochSecond(), 5);
+    }
+
+    @Test
+    void invalidateToken_whenExpired_shouldNotStoreAnything() {
+        ReflectionTestUtils.setField(jwtUtils, "expirationTimeMs", -1);
+        String expiredToken = jwtUtils.generateJwtToken(authentication);
+
+        jwtUtils.invalidateToken(expiredToken);
+
+        verifyNoInteractions(blacklistedTokenRepository);
+    }
+
+    @Test
+    void invalidateAllTokens_shouldRejectEveryIssuedToken_andAcceptNewOnes() {
+        String first = jwtUtils.generateJwtToken(authentication);
+        String second = jwtUtils.generateJwtToken(authentication);
+
+        // DB'deki epoch bump'a kadar 0, sonrasında 1
+        AtomicInteger dbEpoch = new AtomicInteger();
+        when(userRepository.findTokenEpochById(5L)).thenAnswer(invocation -> Optional.of(dbEpoch.get()));
+        doAnswer(invocation -> dbEpoch.incrementAndGet()).when(userRepository).incrementTokenEpochs(List.of(5L));
+        assertTrue(jwtUtils.invalidateAllTokens(first));
+
+        assertTrue(jwtUtils.verify(first).isEmpty());
+        assertTrue(jwtUtils.verify(second).isEmpty());
+        assertTrue(jwtUtils.verify(jwtUtils.generateJwtToken(authentication)).isPresent());
+
+        verify(userRepository).incrementTokenEpochs(List.of(5L));
+        verifyNoInteractions(blacklistedTokenRepository);
+    }
+
+    @Test
+    void generateJwtToken_whenEpochBumpedOnAnotherNode_shouldIssueTokenWithNewEpoch() {
+        String old = jwtUtils.generateJwtToken(authentication);
+        assertTrue(jwtUtils.verify(old).isPresent());           // Epoch 0 artık bu node'un cache'inde
+
+        // Başka bir node'da logout-all: DB'de epoch 1, bu node'un cache'i henüz invalidate edilmedi
+        when(userRepository.findTokenEpochById(5L)).thenReturn(Optional.of(1));
+        String issued = jwtUtils.generateJwtToken(authentication);
+
+        assertEquals(1, jwtUtils.verify(issued).orElseThrow().getEpoch());
+        assertTrue(jwtUtils.verify(old).isEmpty());
+    }
+
+    @Test
+    void verify_whenUserDeleted_shouldReject() {
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Kullanıcı silinince epoch bulunamaz, hiçbir token eşleşmez
+        when(userRepository.findTokenEpochById(5L)).thenReturn(Optional.empty());
+        tokenEpochs.invalidate(List.of(5L));
+
+        assertTrue(jwtUtils.verify(token).isEmpty());
     }
 
     @Test
@@ -104,10 +193,24 @@ public class JwtUtilsTest {
 
         String expiredToken = jwtUtils.generateJwtToken(authentication);
 
-        when(blacklistedTokenRepository.existsByToken(expiredToken)).thenReturn(false);
-
         Boolean valid = jwtUtils.validateJwtToken(expiredToken);
 
         assertFalse(valid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void verify_shouldReturnParsedClaims_andRejectAfterLogout() {
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        Optional<VerifiedToken> verified = jwtUtils.verify(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals("ahmet@mail.com", verified.get().getUsername());
+        assertEquals(5L, verified.get().getUserId());
+        assertEquals(List.of("ROLE_USER"), verified.get().getRoles());
+
+        // İmza cache'ten gelse bile logout edilmiş token kabul edilmez
+        jwtUtils.invalidateToken(token);
+        assertTrue(jwtUtils.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package org.application.hotelbookingappbe.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.security.jwt.JwtVerifier;
+import org.application.hotelbookingappbe.security.jwt.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Validate + extract username for one request:
+    - perRequestParsers: eski JwtUtils akışı (her çağrıda key decode + yeni parser, token iki kez parse edilir)
+    - verifierColdToken: JwtVerifier, cache'te olmayan token (tek parse, hazır key ve parser), farklı token'lar sırayla denenir
+    - verifierCachedToken: JwtVerifier, daha önce doğrulanmış token (sadece SHA-256 + cache lookup)
+
+    Çalıştırma:
+    mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+        -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtVerificationBenchmark"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("01234567890123456789012345678901".getBytes(StandardCharsets.UTF_8));
+
+    private static final int COLD_TOKENS = 1 << 14;
+
+    private JwtVerifier verifier;
+    private JwtVerifier coldVerifier;       // Cache far smaller than the token set: nearly every call is a miss
+    private String token;
+    private String[] coldTokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        verifier = new JwtVerifier(SECRET, 10_000, new SimpleMeterRegistry());
+        coldVerifier = new JwtVerifier(SECRET, 16, new SimpleMeterRegistry());
+        token = token(5L);
+        verifier.verify(token);
+
+        coldTokens = new String[COLD_TOKENS];
+        for (int i = 0; i < COLD_TOKENS; i++) {
+            coldTokens[i] = token(i);
+        }
+    }
+
+    @Benchmark
+    public String perRequestParsers() {
+        Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parse(token);
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String verifierColdToken() {
+        VerifiedToken verified = coldVerifier.verify(coldTokens[next++ & (COLD_TOKENS - 1)]);
+        return verified.getUsername();
+    }
+
+    @Benchmark
+    public String verifierCachedToken() {
+        return verifier.verify(token).getUsername();
+    }
+
+    private String token(long userId) {
+        return Jwts.builder()
+                .setSubject("ahmet@mail.com")
+                .claim("id", userId)
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(verifier.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
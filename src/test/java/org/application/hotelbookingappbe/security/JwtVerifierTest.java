@@ -0,0 +1,81 @@
+package org.application.hotelbookingappbe.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.security.jwt.JwtVerifier;
+import org.application.hotelbookingappbe.security.jwt.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtVerifierTest {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("01234567890123456789012345678901".getBytes(StandardCharsets.UTF_8));
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtVerifier jwtVerifier;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtVerifier = new JwtVerifier(SECRET, 100, meterRegistry);
+    }
+
+    @Test
+    void verify_whenCalledAgain_shouldReturnCachedClaimsWithoutParsing() {
+        String token = token(60_000);
+
+        VerifiedToken first = jwtVerifier.verify(token);
+        VerifiedToken second = jwtVerifier.verify(token);
+
+        assertSame(first, second);
+        assertEquals("ahmet@mail.com", first.getUsername());
+        assertEquals(7L, first.getUserId());
+        assertEquals(List.of("ROLE_ADMIN"), first.getRoles());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "jwt-verified", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void verify_whenExpired_shouldThrow_andNotCache() {
+        String token = token(-1_000);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtVerifier.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtVerifier.verify(token));
+    }
+
+    @Test
+    void verify_whenSignedWithAnotherKey_shouldThrow() {
+        JwtVerifier otherKey = new JwtVerifier(
+                Base64.getEncoder().encodeToString("abcdefghijabcdefghijabcdefghijab".getBytes(StandardCharsets.UTF_8)),
+                100, new SimpleMeterRegistry());
+        String foreignToken = Jwts.builder()
+                .setSubject("ahmet@mail.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(otherKey.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(SignatureException.class, () -> jwtVerifier.verify(foreignToken));
+    }
+
+    private String token(long expiresInMs) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject("ahmet@mail.com")
+                .claim("id", 7L)
+                .claim("roles", List.of("ROLE_ADMIN"))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiresInMs))
+                .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,90 @@
+package org.application.hotelbookingappbe.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.security.throttle.LoginThrottle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void init() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        // Email: 3'lük burst, dakikada 1 | IP: 10'luk burst, dakikada 1 (test süresince dolum olmaz)
+        loginThrottle = new LoginThrottle(new ObjectMapper(), meterRegistry, true, 1024, 3, 1, 10, 1);
+    }
+
+    @Test
+    void tryAcquire_shouldAllowBurst_thenRejectWithPrecomputedBody() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(loginThrottle.tryAcquire("ahmet@mail.com", "10.0.0.1").isEmpty());
+        }
+
+        // Email büyük/küçük harf ve boşluk farkıyla limit aşılamaz
+        Optional<LoginThrottle.Rejection> rejection = loginThrottle.tryAcquire(" Ahmet@Mail.com ", "10.0.0.2");
+
+        assertTrue(rejection.isPresent());
+        assertTrue(rejection.get().retryAfterSeconds() >= 1);
+        assertTrue(new String(rejection.get().body(), StandardCharsets.UTF_8).contains("this account"));
+        assertEquals(1.0, meterRegistry.get("security.login_throttle.rejected").tags("key", "email").counter().count());
+
+        assertTrue(loginThrottle.tryAcquire("mehmet@mail.com", "10.0.0.1").isEmpty());
+    }
+
+    @Test
+    void tryAcquire_shouldLimitAddress_acrossEmails() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(loginThrottle.tryAcquire("user" + i + "@mail.com", "10.0.0.1").isEmpty());
+        }
+
+        Optional<LoginThrottle.Rejection> rejection = loginThrottle.tryAcquire("other@mail.com", "10.0.0.1");
+
+        assertTrue(rejection.isPresent());
+        assertTrue(new String(rejection.get().body(), StandardCharsets.UTF_8).contains("this address"));
+        assertEquals(1.0, meterRegistry.get("security.login_throttle.rejected").tags("key", "ip").counter().count());
+        assertTrue(loginThrottle.tryAcquire("other@mail.com", "10.0.0.2").isEmpty());
+    }
+
+    @Test
+    void tryAcquire_underContention_shouldNeverExceedCapacity() throws Exception {
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                String address = "10.0." + (i / 5) + "." + i;     // IP limiti devreye girmez, sadece email bucket'ı yarışır
+                executor.submit(() -> {
+                    if (loginThrottle.tryAcquire("ahmet@mail.com", address).isEmpty()) {
+                        allowed.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, allowed.get());
+    }
+
+    @Test
+    void tryAcquire_whenDisabled_shouldAlwaysAllow() throws Exception {
+        LoginThrottle disabled = new LoginThrottle(new ObjectMapper(), meterRegistry, false, 1024, 1, 1, 1, 1);
+
+        assertTrue(disabled.tryAcquire("ahmet@mail.com", "10.0.0.1").isEmpty());
+        assertTrue(disabled.tryAcquire("ahmet@mail.com", "10.0.0.1").isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package org.application.hotelbookingappbe.security;
+
+import org.application.hotelbookingappbe.model.BlacklistedToken;
+import org.application.hotelbookingappbe.repository.BlacklistedTokenRepository;
+import org.application.hotelbookingappbe.security.jwt.BlacklistedTokenMigration;
+import org.application.hotelbookingappbe.security.jwt.RevokedTokens;
+import org.application.hotelbookingappbe.security.jwt.TokenHashes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RevokedTokensTest {
+
+    @Mock
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    @Mock
+    private BlacklistedTokenMigration legacyTokens;
+
+    private RevokedTokens revokedTokens;
+
+    private final Instant inOneHour = Instant.now().plusSeconds(3600);
+
+    @BeforeEach
+    void init() {
+        revokedTokens = new RevokedTokens(blacklistedTokenRepository, legacyTokens, 1000);
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldLoadBlacklistedTokens() {
+        when(blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(row(1L, "revoked", inOneHour)));
+
+        revokedTokens.afterSingletonsInstantiated();
+
+        assertTrue(revokedTokens.isRevoked(TokenHashes.sha256Hex("revoked")));
+        assertFalse(revokedTokens.isRevoked(TokenHashes.sha256Hex("active")));
+        // Eski satırlar ilk yüklemeden önce hash'e dönüştürülür
+        InOrder inOrder = inOrder(legacyTokens, blacklistedTokenRepository);
+        inOrder.verify(legacyTokens).migrate();
+        inOrder.verify(blacklistedTokenRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void poll_shouldPickUpOtherNodesRevocations_andReplayRecentIds() {
+        when(blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(row(150L, "first", inOneHour)));
+        revokedTokens.poll();
+
+        // Son 100 id tekrar okunur, geç commit olan satırlar kaçmaz
+        when(blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(eq(50L), any(Limit.class)))
+                .thenReturn(List.of(row(149L, "second", inOneHour), row(150L, "first", inOneHour)));
+        revokedTokens.poll();
+
+        assertTrue(revokedTokens.isRevoked(TokenHashes.sha256Hex("first")));
+        assertTrue(revokedTokens.isRevoked(TokenHashes.sha256Hex("second")));
+    }
+
+    @Test
+    void poll_shouldSkipExpiredAndLegacyRows_andDropExpiredEntries() {
+        BlacklistedToken legacy = new BlacklistedToken(3L, null, null);
+        when(blacklistedTokenRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(row(1L, "expired", Instant.now().minusSeconds(1)), row(2L, "active", inOneHour), legacy));
+
+        revokedTokens.revoke(TokenHashes.sha256Hex("expiring"), Instant.now().minusSeconds(1));
+        revokedTokens.poll();
+
+        assertFalse(revokedTokens.isRevoked(TokenHashes.sha256Hex("expired")));
+        assertFalse(revokedTokens.isRevoked(TokenHashes.sha256Hex("expiring")));
+        assertTrue(revokedTokens.isRevoked(TokenHashes.sha256Hex("active")));
+    }
+
+    @Test
+    void isRevoked_shouldStayExact_beyondExpectedSize() {
+        for (int i = 0; i < 5000; i++) {
+            revokedTokens.revoke(TokenHashes.sha256Hex("revoked-" + i), inOneHour);
+        }
+
+        // Bloom filter dolsa bile false positive'ler exact set'te elenir
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(revokedTokens.isRevoked(TokenHashes.sha256Hex("revoked-" + i)));
+            assertFalse(revokedTokens.isRevoked(TokenHashes.sha256Hex("active-" + i)));
+        }
+    }
+
+    private static BlacklistedToken row(Long id, String token, Instant expiresAt) {
+        return new BlacklistedToken(id, TokenHashes.sha256(token), expiresAt);
+    }
+}
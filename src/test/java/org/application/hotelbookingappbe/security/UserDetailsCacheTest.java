@@ -0,0 +1,111 @@
+package org.application.hotelbookingappbe.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.model.Role;
+import org.application.hotelbookingappbe.model.User;
+import org.application.hotelbookingappbe.repository.UserRepository;
+import org.application.hotelbookingappbe.security.user.HotelUserDetailsService;
+import org.application.hotelbookingappbe.security.user.UserDetailsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDetailsCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache userDetailsCache;
+    private HotelUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(meterRegistry, true, 100, Duration.ofMinutes(1));
+        userDetailsService = new HotelUserDetailsService(userRepository, userDetailsCache);
+    }
+
+    @Test
+    void loadUserByUsername_shouldQueryOnce_andPublishMetrics() {
+        when(userRepository.findByEmail("ahmet@mail.com")).thenReturn(Optional.of(user("ROLE_USER")));
+
+        userDetailsService.loadUserByUsername("ahmet@mail.com");
+        userDetailsService.loadUserByUsername("ahmet@mail.com");
+
+        verify(userRepository, times(1)).findByEmail("ahmet@mail.com");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "user-details", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_shouldReloadChangedRoles() {
+        when(userRepository.findByEmail("ahmet@mail.com"))
+                .thenReturn(Optional.of(user("ROLE_USER")))
+                .thenReturn(Optional.of(user("ROLE_ADMIN")));
+
+        userDetailsService.loadUserByUsername("ahmet@mail.com");
+        userDetailsCache.invalidate("ahmet@mail.com");
+
+        assertEquals(List.of("ROLE_ADMIN"), userDetailsService.loadUserByUsername("ahmet@mail.com").getAuthorities()
+                .stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void invalidate_insideTransaction_shouldEvictAgainAfterCompletion() {
+        when(userRepository.findByEmail("ahmet@mail.com")).thenReturn(Optional.of(user("ROLE_USER")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userDetailsCache.invalidate("ahmet@mail.com");
+
+            // Commit'ten önce başka bir istek eski rolleri okuyup cache'e koyar
+            userDetailsService.loadUserByUsername("ahmet@mail.com");
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        userDetailsService.loadUserByUsername("ahmet@mail.com");
+
+        verify(userRepository, times(2)).findByEmail("ahmet@mail.com");
+    }
+
+    @Test
+    void loadUserByUsername_whenMissing_shouldThrow_andNotCache() {
+        when(userRepository.findByEmail("missing@mail.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("missing@mail.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("missing@mail.com"));
+
+        verify(userRepository, times(2)).findByEmail("missing@mail.com");
+    }
+
+    private static User user(String roleName) {
+        Role role = new Role();
+        role.setName(roleName);
+
+        User user = new User();
+        user.setId(5L);
+        user.setEmail("ahmet@mail.com");
+        user.setPassword("encoded");
+        user.setRoles(new ArrayList<>(List.of(role)));
+        return user;
+    }
+}
@@ -1,24 +1,56 @@
 package org.application.hotelbookingappbe.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.application.hotelbookingappbe.availability.RoomAvailabilityIndex;
+import org.application.hotelbookingappbe.availability.RoomOccupancyBitmap;
+import org.application.hotelbookingappbe.catalog.RoomCatalogCache;
+import org.application.hotelbookingappbe.catalog.RoomTypeDictionary;
+import org.application.hotelbookingappbe.confirmation.ConfirmationCodeGenerator;
 import org.application.hotelbookingappbe.dto.BookingDto;
+import org.application.hotelbookingappbe.dto.BookingStay;
+import org.application.hotelbookingappbe.dto.CursorPage;
+import org.application.hotelbookingappbe.dto.GroupBookingItem;
+import org.application.hotelbookingappbe.dto.GroupBookingRequest;
+import org.application.hotelbookingappbe.dto.RoomDto;
 import org.application.hotelbookingappbe.exception.BookingIsNotFoundException;
+import org.application.hotelbookingappbe.exception.GroupBookingFailedException;
 import org.application.hotelbookingappbe.exception.InvalidBookingRequestException;
+import org.application.hotelbookingappbe.exception.InvalidCursorException;
 import org.application.hotelbookingappbe.exception.RoomIsNotAvailableException;
+import org.application.hotelbookingappbe.exception.RoomIsNotFoundException;
+import org.application.hotelbookingappbe.lock.RoomLockStripes;
 import org.application.hotelbookingappbe.model.Booking;
 import org.application.hotelbookingappbe.model.Room;
+import org.application.hotelbookingappbe.model.RoomType;
+import org.application.hotelbookingappbe.pagination.Cursors;
 import org.application.hotelbookingappbe.repository.BookingRepository;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
+import org.application.hotelbookingappbe.repository.RoomTypeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +67,42 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private RoomNightRepository roomNightRepository;
+
     @Mock
     private RoomService roomService;
 
+    @Mock
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomOccupancyBitmap occupancyBitmap;
+
+    /*
+        @Spy:
+        Gerçek nesne kullanılır, @InjectMocks onu da constructor'a enjekte eder
+        Lock stripe'ları ve TransactionTemplate gerçek çalışır, sadece transaction manager mocktur
+    */
+    @Spy
+    private RoomLockStripes roomLocks = new RoomLockStripes(new SimpleMeterRegistry(), 16);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private ConfirmationCodeGenerator confirmationCodes = new ConfirmationCodeGenerator();
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // Boş dictionary: isimler RoomType nesnesinin kendisinden okunur
+    @Spy
+    private RoomTypeDictionary roomTypes = new RoomTypeDictionary(mock(RoomTypeRepository.class), mock(RoomCatalogCache.class));
+
     /*
         @InjectMocks:
         Test etmek istenilen class için kullanılır
@@ -54,7 +119,7 @@ public class BookingServiceTest {
     void init() {
         room = Room.builder()
                 .id(10L)
-                .roomType("DELUXE")
+                .roomType(new RoomType(1, "DELUXE", "DELUXE"))
                 .roomPrice(new BigDecimal("1500.00"))
                 .bookings(new ArrayList<>())
                 .build();
@@ -86,28 +151,69 @@ public class BookingServiceTest {
 
     @Test
     void getAllBookings_whenFound_shouldReturnDtos() {
-        when(bookingRepository.findAll()).thenReturn(List.of(booking1, booking2));
+        when(bookingRepository.findPageAfter(0L, Limit.of(21))).thenReturn(List.of(booking1, booking2));
 
-        List<BookingDto> bookingDtos = bookingService.getAllBookings();
+        CursorPage<BookingDto> page = bookingService.getAllBookings(null, 20);
 
-        assertNotNull(bookingDtos);
-        assertEquals("CONF-123", bookingDtos.get(0).getBookingConfirmationCode());
-        assertEquals("mehmet@mail.com", bookingDtos.get(1).getGuestEmail());
+        assertNotNull(page);
+        assertEquals("CONF-123", page.getItems().get(0).getBookingConfirmationCode());
+        assertEquals("mehmet@mail.com", page.getItems().get(1).getGuestEmail());
+        assertNull(page.getNextCursor());
 
-        // verify(bookingRepository, times(1)).findAll();  --->  Alttakiyle aynıdır
-        verify(bookingRepository).findAll();
+        // verify(bookingRepository, times(1)).findPageAfter(...);  --->  Alttakiyle aynıdır
+        verify(bookingRepository).findPageAfter(0L, Limit.of(21));
+    }
+
+    @Test
+    void getAllBookings_whenMoreRowsThanPageSize_shouldReturnCursorOfLastItem() {
+        when(bookingRepository.findPageAfter(0L, Limit.of(2))).thenReturn(List.of(booking1, booking2));
+
+        CursorPage<BookingDto> page = bookingService.getAllBookings(null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(Cursors.encode(booking1.getBookingId()), page.getNextCursor());
+
+        // Bir sonraki sayfa cursor'daki id'den sonrasını okur
+        when(bookingRepository.findPageAfter(booking1.getBookingId(), Limit.of(2))).thenReturn(List.of(booking2));
+
+        CursorPage<BookingDto> next = bookingService.getAllBookings(page.getNextCursor(), 1);
+
+        assertEquals("mehmet@mail.com", next.getItems().get(0).getGuestEmail());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getAllBookings_whenCursorIsMalformed_shouldThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> bookingService.getAllBookings("not-a-cursor", 20));
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void exportBookings_shouldWriteOneJsonObjectPerLine() {
+        when(bookingRepository.streamAllWithRoom()).thenReturn(Stream.of(booking1, booking2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingService.exportBookings(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"bookingConfirmationCode\":\"CONF-123\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].endsWith("}"));
+
+        verify(bookingRepository, never()).findAll();
     }
 
     @Test
     void getAllBookings_whenEmpty_shouldThrowBookingIsNotFoundException() {
-        when(bookingRepository.findAll()).thenReturn(List.of());
+        when(bookingRepository.findPageAfter(0L, Limit.of(21))).thenReturn(List.of());
 
         assertThrows(
                 BookingIsNotFoundException.class,
-                () -> bookingService.getAllBookings()
+                () -> bookingService.getAllBookings(null, 20)
         );
 
-        verify(bookingRepository).findAll();
+        verify(bookingRepository).findPageAfter(0L, Limit.of(21));
         verifyNoMoreInteractions(bookingRepository);
     }
 
@@ -138,27 +244,27 @@ public class BookingServiceTest {
 
     @Test
     void getBookingsByEmail_whenFound_shouldReturnDtoList() {
-        when(bookingRepository.findByGuestEmail("ahmet@gmail.com")).thenReturn(List.of(booking1));
+        when(bookingRepository.findPageByGuestEmailAfter("ahmet@gmail.com", 0L, Limit.of(21))).thenReturn(List.of(booking1));
 
-        List<BookingDto> bookingDtos = bookingService.getBookingsByEmail("ahmet@gmail.com");
+        List<BookingDto> bookingDtos = bookingService.getBookingsByEmail("ahmet@gmail.com", null, 20).getItems();
 
         assertEquals(1, bookingDtos.size());
         assertEquals("CONF-123", bookingDtos.get(0).getBookingConfirmationCode());
         assertEquals("Ahmet", bookingDtos.get(0).getGuestName());
 
-        verify(bookingRepository).findByGuestEmail("ahmet@gmail.com");
+        verify(bookingRepository).findPageByGuestEmailAfter("ahmet@gmail.com", 0L, Limit.of(21));
     }
 
     @Test
     void getBookingsByEmail_whenEmpty_shouldThrowBookingIsNotFoundException() {
-        when(bookingRepository.findByGuestEmail("none@mail.com")).thenReturn(List.of());
+        when(bookingRepository.findPageByGuestEmailAfter("none@mail.com", 0L, Limit.of(21))).thenReturn(List.of());
 
         assertThrows(
                 BookingIsNotFoundException.class,
-                () -> bookingService.getBookingsByEmail("none@mail.com")
+                () -> bookingService.getBookingsByEmail("none@mail.com", null, 20)
         );
 
-        verify(bookingRepository).findByGuestEmail("none@mail.com");
+        verify(bookingRepository).findPageByGuestEmailAfter("none@mail.com", 0L, Limit.of(21));
     }
 
     @Test
@@ -172,14 +278,8 @@ public class BookingServiceTest {
                 .numOfChildren(0)
                 .build();
 
-        Room emptyRoom = Room.builder()
-                .id(10L)
-                .roomType("DELUXE")
-                .roomPrice(new BigDecimal("1500.00"))
-                .bookings(new ArrayList<>())
-                .build();
-
-        when(roomService.getRoomEntityById(10L)).thenReturn(emptyRoom);
+        when(roomService.getRoomById(10L)).thenReturn(new RoomDto(10L, "DELUXE", new BigDecimal("1500.00")));
+        when(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12))).thenReturn(true);
 
         /*
             Mockito Answer & thenAnswer:
@@ -203,10 +303,20 @@ public class BookingServiceTest {
 
         assertEquals(999L, result.getBookingId());
         assertEquals("Ahmet", result.getGuestName());
-        assertNotNull(result.getBookingConfirmationCode()); // Room.addBooking(...) UUID üretir
+        assertEquals(ConfirmationCodeGenerator.CODE_LENGTH, result.getBookingConfirmationCode().length());
+
+        verify(bookingRepository).existsByBookingConfirmationCode(result.getBookingConfirmationCode());  // Collision check
 
-        verify(roomService).getRoomEntityById(10L);
+        assertEquals("DELUXE", result.getRoom().getRoomType());
+
+        // Oda entity'si yüklenmez, booking sadece referansa bağlanır
+        verify(roomService).getRoomById(10L);
+        verify(roomService).getRoomReference(10L);
+        verify(roomService).markRoomsBooked(List.of(10L));
         verify(bookingRepository).save(any(Booking.class));
+        verify(roomNightRepository).insertNights(10L, 999L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12));
+        verify(availabilityIndex).addBooking(10L, 999L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12));
+        verify(occupancyBitmap).occupy(10L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12));
     }
 
     @Test
@@ -228,6 +338,28 @@ public class BookingServiceTest {
         // Bu senaryoda RoomService hiç çağrılmamalı (date validation daha önce patlıyor)
         verifyNoInteractions(roomService);
         verifyNoInteractions(bookingRepository);
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    @Test
+    void addBooking_whenCheckoutDateEqualsCheckinDate_shouldThrowInvalidBookingRequestException() {
+        BookingDto requestDto = BookingDto.builder()
+                .checkInDate(LocalDate.of(2026, 1, 10))
+                .checkOutDate(LocalDate.of(2026, 1, 10)) // sıfır gece: ledger'a satır yazılmaz, çakışma kontrolü atlanırdı
+                .guestName("Ahmet")
+                .guestEmail("ahmet@mail.com")
+                .numOfAdults(2)
+                .numOfChildren(0)
+                .build();
+
+        assertThrows(
+                InvalidBookingRequestException.class,
+                () -> bookingService.addBooking(10L, requestDto)
+        );
+
+        verifyNoInteractions(roomService);
+        verifyNoInteractions(bookingRepository);
+        verifyNoInteractions(roomNightRepository);
     }
 
     @Test
@@ -241,49 +373,185 @@ public class BookingServiceTest {
                 .numOfChildren(0)
                 .build();
 
-        // Room üzerinde aynı checkInDate'e sahip bir booking varsa availability false'a düşer
-        Room roomWithExistingBooking = Room.builder()
-                .id(10L)
-                .roomType("DELUXE")
-                .roomPrice(new BigDecimal("1500.00"))
-                .bookings(new ArrayList<>(List.of(
-                        Booking.builder()
-                                .checkInDate(LocalDate.of(2026, 1, 10))
-                                .checkOutDate(LocalDate.of(2026, 1, 15))
-                                .build()
-                )))
+        // Index'te aynı tarihlerle çakışan bir booking varsa availability false'a düşer, lock/transaction'a hiç girilmez
+        when(roomService.getRoomById(10L)).thenReturn(new RoomDto(10L, "DELUXE", new BigDecimal("1500.00")));
+        when(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12))).thenReturn(false);
+
+        assertThrows(
+                RoomIsNotAvailableException.class,
+                () -> bookingService.addBooking(10L, requestDto)
+        );
+
+        verify(roomService, never()).markRoomsBooked(any());
+        verify(bookingRepository, never()).save(any());
+        verify(availabilityIndex, never()).addBooking(any(), any(), any(), any());
+    }
+
+    @Test
+    void addBooking_whenRoomNotFound_shouldThrowRoomIsNotFoundException_beforeConsultingIndex() {
+        BookingDto requestDto = BookingDto.builder()
+                .checkInDate(LocalDate.of(2026, 1, 10))
+                .checkOutDate(LocalDate.of(2026, 1, 12))
+                .guestName("Ahmet")
+                .guestEmail("ahmet@mail.com")
+                .numOfAdults(2)
+                .numOfChildren(0)
+                .build();
+
+        when(roomService.getRoomById(99L)).thenThrow(new RoomIsNotFoundException("Room is not found"));
+
+        assertThrows(
+                RoomIsNotFoundException.class,
+                () -> bookingService.addBooking(99L, requestDto)
+        );
+
+        verifyNoInteractions(availabilityIndex);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void addBooking_whenLedgerRejectsNight_shouldThrowRoomIsNotAvailableException() {
+        BookingDto requestDto = BookingDto.builder()
+                .checkInDate(LocalDate.of(2026, 1, 10))
+                .checkOutDate(LocalDate.of(2026, 1, 12))
+                .guestName("Ahmet")
                 .build();
 
-        when(roomService.getRoomEntityById(10L)).thenReturn(roomWithExistingBooking);
+        // Local index boş görüyor ama başka bir node aynı geceyi satmış -> room_night unique key patlar
+        when(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12))).thenReturn(true);
+        when(roomService.getRoomById(10L)).thenReturn(new RoomDto(10L, "DELUXE", new BigDecimal("1500.00")));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        doThrow(new DuplicateKeyException("Duplicate entry for key 'room_night.PRIMARY'"))
+                .when(roomNightRepository).insertNights(eq(10L), any(), any(), any());
 
         assertThrows(
                 RoomIsNotAvailableException.class,
                 () -> bookingService.addBooking(10L, requestDto)
         );
 
-        verify(roomService).getRoomEntityById(10L);
-        verify(bookingRepository, never()).save(any());
+        verify(availabilityIndex, never()).addBooking(any(), any(), any(), any());
+        verify(availabilityIndex).evictRoom(10L);       // Index bir sonraki sorguda odayı DB'den tekrar yükler
+        verify(occupancyBitmap, never()).occupy(any(), any(), any());
+    }
+
+    @Test
+    void addGroupBooking_whenAllItemsValid_shouldSaveAllInOneBatch() {
+        GroupBookingRequest request = GroupBookingRequest.builder()
+                .guestName("Tur Firması")
+                .guestEmail("tur@mail.com")
+                .items(List.of(
+                        GroupBookingItem.builder().roomId(10L).checkInDate(LocalDate.of(2026, 5, 1)).checkOutDate(LocalDate.of(2026, 5, 3)).numOfAdults(2).build(),
+                        GroupBookingItem.builder().roomId(20L).checkInDate(LocalDate.of(2026, 5, 1)).checkOutDate(LocalDate.of(2026, 5, 3)).numOfAdults(1).build()
+                ))
+                .build();
+
+        when(roomService.getRoomDtosByIds(Set.of(10L, 20L))).thenReturn(Map.of(
+                10L, new RoomDto(10L, "DELUXE", new BigDecimal("1500.00")),
+                20L, new RoomDto(20L, "SINGLE", new BigDecimal("500.00"))
+        ));
+        when(availabilityIndex.isAvailable(any(), any(), any())).thenReturn(true);
+        when(roomService.getRoomReference(10L)).thenReturn(Room.builder().id(10L).build());
+        when(roomService.getRoomReference(20L)).thenReturn(Room.builder().id(20L).build());
+
+        // saveAll -> pooled id'ler persist anında atanır
+        AtomicLong ids = new AtomicLong(100);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Booking> toSave = inv.getArgument(0);
+            toSave.forEach(b -> b.setBookingId(ids.incrementAndGet()));
+            return toSave;
+        });
+
+        List<BookingDto> result = bookingService.addGroupBooking(request);
+
+        assertEquals(2, result.size());
+        assertEquals("SINGLE", result.get(1).getRoom().getRoomType());
+
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(roomNightRepository, times(1)).insertNights(anyList());
+        verify(roomService).markRoomsBooked(Set.of(10L, 20L));
+        verify(occupancyBitmap).occupy(20L, LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 3));
+    }
+
+    @Test
+    void addGroupBooking_whenSomeItemsInvalid_shouldRejectAll_withPerItemReasons() {
+        GroupBookingRequest request = GroupBookingRequest.builder()
+                .guestName("Tur Firması")
+                .guestEmail("tur@mail.com")
+                .items(List.of(
+                        GroupBookingItem.builder().roomId(10L).checkInDate(LocalDate.of(2026, 5, 1)).checkOutDate(LocalDate.of(2026, 5, 3)).build(),
+                        GroupBookingItem.builder().roomId(10L).checkInDate(LocalDate.of(2026, 5, 2)).checkOutDate(LocalDate.of(2026, 5, 4)).build(),   // Grup içinde çakışma
+                        GroupBookingItem.builder().roomId(99L).checkInDate(LocalDate.of(2026, 5, 1)).checkOutDate(LocalDate.of(2026, 5, 3)).build()    // Olmayan oda
+                ))
+                .build();
+
+        when(roomService.getRoomDtosByIds(Set.of(10L, 99L)))
+                .thenReturn(Map.of(10L, new RoomDto(10L, "DELUXE", new BigDecimal("1500.00"))));
+        when(availabilityIndex.isAvailable(10L, LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 3))).thenReturn(true);
+
+        GroupBookingFailedException ex = assertThrows(
+                GroupBookingFailedException.class,
+                () -> bookingService.addGroupBooking(request)
+        );
+
+        assertEquals(2, ex.getFailures().size());
+        assertEquals(1, ex.getFailures().get(0).getIndex());
+        assertEquals(99L, ex.getFailures().get(1).getRoomId());
+
+        verify(bookingRepository, never()).saveAll(any());
+        verifyNoInteractions(roomNightRepository);
+    }
+
+    @Test
+    void addGroupBooking_whenItemHasNoNights_shouldRejectItem() {
+        GroupBookingRequest request = GroupBookingRequest.builder()
+                .guestName("Tur Firması")
+                .guestEmail("tur@mail.com")
+                .items(List.of(
+                        GroupBookingItem.builder().roomId(10L).checkInDate(LocalDate.of(2026, 5, 1)).checkOutDate(LocalDate.of(2026, 5, 1)).build()
+                ))
+                .build();
+
+        when(roomService.getRoomDtosByIds(Set.of(10L)))
+                .thenReturn(Map.of(10L, new RoomDto(10L, "DELUXE", new BigDecimal("1500.00"))));
+
+        GroupBookingFailedException ex = assertThrows(
+                GroupBookingFailedException.class,
+                () -> bookingService.addGroupBooking(request)
+        );
+
+        assertEquals(1, ex.getFailures().size());
+        assertEquals("Check out date must be after check in date", ex.getFailures().get(0).getReason());
+        verifyNoInteractions(availabilityIndex);
+        verifyNoInteractions(roomNightRepository);
     }
 
     @Test
-    void deleteBooking_whenExists_shouldDelete() {
-        when(bookingRepository.existsById(55L)).thenReturn(true);
+    void deleteBooking_whenExists_shouldDeleteAndReleaseIndex() {
+        BookingStay stay = mock(BookingStay.class);
+        when(stay.getRoomId()).thenReturn(10L);
+        when(stay.getCheckInDate()).thenReturn(LocalDate.of(2026, 1, 10));
+        when(stay.getCheckOutDate()).thenReturn(LocalDate.of(2026, 1, 12));
+        when(bookingRepository.findStayByBookingId(55L)).thenReturn(Optional.of(stay));
 
         doNothing().when(bookingRepository).deleteById(55L);
 
         bookingService.deleteBooking(55L);
 
-        verify(bookingRepository).existsById(55L);
+        verify(bookingRepository).findStayByBookingId(55L);
+        verify(roomNightRepository).deleteByBookingId(55L);
         verify(bookingRepository).deleteById(55L);
+        verify(roomService).markStaysChanged(10L);
+        verify(availabilityIndex).removeBooking(10L, 55L);
+        verify(occupancyBitmap).release(10L, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12));
     }
 
     @Test
     void deleteBooking_whenNotExists_shouldThrowBookingIsNotFoundException_andNotDelete() {
-        when(bookingRepository.existsById(55L)).thenReturn(false);
+        when(bookingRepository.findStayByBookingId(55L)).thenReturn(Optional.empty());
 
         assertThrows(BookingIsNotFoundException.class, () -> bookingService.deleteBooking(55L));
 
-        verify(bookingRepository).existsById(55L);
+        verify(bookingRepository).findStayByBookingId(55L);
         verify(bookingRepository, never()).deleteById(anyLong());
     }
 }
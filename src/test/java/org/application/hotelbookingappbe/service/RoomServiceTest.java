@@ -1,20 +1,37 @@
 package org.application.hotelbookingappbe.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.hotelbookingappbe.availability.RoomAvailabilityIndex;
+import org.application.hotelbookingappbe.availability.RoomOccupancyBitmap;
+import org.application.hotelbookingappbe.catalog.RoomCatalogCache;
+import org.application.hotelbookingappbe.catalog.RoomTypeDictionary;
+import org.application.hotelbookingappbe.dto.CursorPage;
 import org.application.hotelbookingappbe.dto.RoomDto;
+import org.application.hotelbookingappbe.exception.InvalidCursorException;
 import org.application.hotelbookingappbe.exception.RoomIsNotFoundException;
 import org.application.hotelbookingappbe.model.Room;
+import org.application.hotelbookingappbe.model.RoomType;
+import org.application.hotelbookingappbe.pagination.Cursors;
+import org.application.hotelbookingappbe.photo.PhotoLibrary;
+import org.application.hotelbookingappbe.repository.RoomNightRepository;
 import org.application.hotelbookingappbe.repository.RoomRepository;
+import org.application.hotelbookingappbe.repository.RoomTypeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,34 +47,66 @@ public class RoomServiceTest {
     @Mock
     private RoomRepository roomRepository;
 
+    @Mock
+    private RoomNightRepository roomNightRepository;
+
+    @Mock
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomOccupancyBitmap occupancyBitmap;
+
+    @Mock
+    private PhotoLibrary photoLibrary;
+
+    @Spy
+    private RoomCatalogCache catalogCache = new RoomCatalogCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10));
+
+    // Gerçek dictionary, sadece room_type tablosu (repository) mocktur
+    private final RoomTypeRepository roomTypeRepository = mock(RoomTypeRepository.class);
+
+    @Spy
+    private RoomTypeDictionary roomTypes = new RoomTypeDictionary(roomTypeRepository, catalogCache);
+
     @InjectMocks
     private RoomService roomService;
 
+    private static final String PHOTO_KEY_1 = "1".repeat(64);
+    private static final String PHOTO_KEY_2 = "2".repeat(64);
+
+    private static final RoomType DELUXE = new RoomType(1, "DELUXE", "DELUXE");
+    private static final RoomType STANDARD = new RoomType(2, "STANDARD", "STANDARD");
+
     private Room room1;
     private Room room2;
 
     @BeforeEach
     void init() {
+        lenient().when(roomTypeRepository.findAll()).thenReturn(List.of(STANDARD, DELUXE));
+        lenient().when(roomTypeRepository.findByIdForShare(1)).thenReturn(Optional.of(DELUXE));
+
         room1 = Room.builder()
                 .id(1L)
-                .roomType("DELUXE")
+                .roomType(DELUXE)
                 .roomPrice(new BigDecimal("1500.00"))
-                .photo("img1".getBytes())
+                .photoKey(PHOTO_KEY_1)
                 .build();
 
         room2 = Room.builder()
                 .id(2L)
-                .roomType("STANDARD")
+                .roomType(STANDARD)
                 .roomPrice(new BigDecimal("500.00"))
-                .photo("img2".getBytes())
+                .photoKey(PHOTO_KEY_2)
                 .build();
     }
 
     @Test
-    void addRoom_whenPhotoProvided_shouldSaveWithBytes() throws IOException {
+    void addRoom_whenPhotoProvided_shouldStreamItIntoPhotoLibrary() throws IOException {
         MultipartFile photo = mock(MultipartFile.class);
+        InputStream upload = new ByteArrayInputStream("photo-bytes".getBytes());
 
-        when(photo.getBytes()).thenReturn("photo-bytes".getBytes());
+        when(photo.getInputStream()).thenReturn(upload);
+        when(photoLibrary.acquire(upload)).thenReturn(PHOTO_KEY_1);
 
         when(roomRepository.save(any(Room.class))).thenAnswer(invocation -> {
             Room toSave = invocation.getArgument(0);
@@ -68,7 +117,11 @@ public class RoomServiceTest {
         RoomDto result = roomService.addRoom(photo, "DELUXE", new BigDecimal("1500.00"));
 
         assertEquals(11L, result.getId());
-        verify(roomRepository).save(any(Room.class));
+        // Room satırında sadece key tutulur, byte'lar store'a gider
+        verify(roomRepository).save(argThat(room -> PHOTO_KEY_1.equals(room.getPhotoKey())));
+        // Upload heap'e alınmaz
+        verify(photo, never()).getBytes();
+        verify(occupancyBitmap).registerRoom(11L, "DELUXE");
     }
 
     @Test
@@ -84,35 +137,54 @@ public class RoomServiceTest {
         assertEquals(10L, result.getId());
         assertEquals("DELUXE", result.getRoomType());
 
-        verify(roomRepository).save(any(Room.class));
+        verify(roomRepository).save(argThat(room -> room.getPhotoKey() == null));
+        verifyNoInteractions(photoLibrary);
+        // Diğer node'lar odayı bitmap refresh'inde görür
+        verify(roomRepository).markStaysChanged(10L);
     }
 
     @Test
     public void getRoomTypes_shouldReturnListOfRoomTypes() {
-        List<String> roomTypes = List.of("DELUXE", "STANDARD");
-        when(roomRepository.findDistinctRoomTypes()).thenReturn(roomTypes);
-
         List<String> result = roomService.getRoomTypes();
+        roomService.getRoomTypes();
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertTrue(result.contains("DELUXE"));
-        assertTrue(result.contains("STANDARD"));
+        assertEquals(List.of("DELUXE", "STANDARD"), result);
 
-        verify(roomRepository).findDistinctRoomTypes();
+        // Dictionary bellekten döner, room tablosu taranmaz
+        verify(roomTypeRepository, times(1)).findAll();
+        verifyNoInteractions(roomRepository);
+    }
+
+    @Test
+    void addRoom_whenRoomTypeIsNew_shouldInsertItWithItsDisplayName() throws IOException {
+        RoomType suite = new RoomType(3, "Suite", "SUITE");
+        when(roomTypeRepository.findByNameKeyForShare("SUITE")).thenReturn(Optional.of(suite));
+        when(roomRepository.save(any(Room.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RoomDto result = roomService.addRoom(null, " Suite ", new BigDecimal("2500.00"));
+
+        // API girilen ismi döner, sadece lookup key'i normalize edilir
+        assertEquals("Suite", result.getRoomType());
+        verify(roomTypeRepository).insertIfAbsent("Suite", "SUITE");
+        verify(roomRepository).save(argThat(room -> room.getRoomType() == suite));
     }
 
     @Test
     void getAllRooms_shouldReturnMappedDtos() {
-        when(roomRepository.findAll()).thenReturn(List.of(room1, room2));
+        when(roomRepository.findRoomDtosAfter(0L, Limit.of(21))).thenReturn(List.of(
+                new RoomDto(1L, "DELUXE", new BigDecimal("1500.00")),
+                new RoomDto(2L, "STANDARD", new BigDecimal("800.00"))
+        ));
 
-        List<RoomDto> result = roomService.getAllRooms();
+        CursorPage<RoomDto> result = roomService.getAllRooms(null, 20);
 
-        assertEquals(2, result.size());
-        assertEquals("DELUXE", result.get(0).getRoomType());
-        assertEquals("STANDARD", result.get(1).getRoomType());
+        assertEquals(2, result.getItems().size());
+        assertEquals("DELUXE", result.getItems().get(0).getRoomType());
+        assertEquals("STANDARD", result.getItems().get(1).getRoomType());
+        assertNull(result.getNextCursor());
 
-        verify(roomRepository).findAll();
+        verify(roomRepository).findRoomDtosAfter(0L, Limit.of(21));
+        verify(roomRepository, never()).findAll();
     }
 
     @Test
@@ -126,6 +198,34 @@ public class RoomServiceTest {
         verify(roomRepository).findById(1L);
     }
 
+    @Test
+    void getRoomById_whenCalledTwice_shouldHitRepositoryOnce() {
+        when(roomRepository.findById(1L)).thenReturn(Optional.of(room1));
+
+        roomService.getRoomById(1L);
+        RoomDto cached = roomService.getRoomById(1L);
+
+        assertEquals("DELUXE", cached.getRoomType());
+        verify(roomRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void updateRoom_shouldInvalidateCachedRoom() throws IOException {
+        when(roomRepository.findById(1L)).thenReturn(Optional.of(room1));
+        when(roomRepository.save(any(Room.class))).thenReturn(room1);
+        when(roomTypeRepository.findByNameKeyForShare("SUITE")).thenReturn(Optional.of(new RoomType(3, "SUITE", "SUITE")));
+
+        roomService.getRoomById(1L);
+        roomService.updateRoom(1L, "SUITE", new BigDecimal("2500.00"), null);
+
+        // Güncellemeden sonraki okuma eski DTO'yu değil yeni değeri görmeli
+        assertEquals("SUITE", roomService.getRoomById(1L).getRoomType());
+        verify(catalogCache).invalidate(1L);
+        verify(roomRepository).markStaysChanged(1L);
+        // DELUXE tipinin başka odası kalmadıysa dictionary'den silinir
+        verify(roomTypeRepository).deleteIfUnused(1);
+    }
+
     @Test
     void getRoomById_whenNotFound_shouldThrowRoomIsNotFoundException() {
         when(roomRepository.findById(99L)).thenReturn(Optional.empty());
@@ -139,40 +239,98 @@ public class RoomServiceTest {
     }
 
     @Test
-    void getRoomPhotoByRoomId_shouldReturnBytes() {
+    void getRoomPhotoKey_shouldReturnKeyWithoutTouchingStore() {
         when(roomRepository.findById(1L)).thenReturn(Optional.of(room1));
 
-        byte[] result = roomService.getRoomPhotoByRoomId(1L);
+        assertEquals(PHOTO_KEY_1, roomService.getRoomPhotoKey(1L));
 
-        assertArrayEquals("img1".getBytes(), result);
         verify(roomRepository).findById(1L);
+        verifyNoInteractions(photoLibrary);
     }
 
     @Test
-    void getAvailableRooms_shouldReturnRoomsNotInBookedRooms() {
+    void getRoomPhotoKey_whenRoomNotFound_shouldThrowRoomIsNotFoundException() {
+        when(roomRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(RoomIsNotFoundException.class, () -> roomService.getRoomPhotoKey(99L));
+    }
+
+    @Test
+    void getAvailableRooms_whenCoveredByBitmap_shouldLoadOnlyRequestedPage() {
         LocalDate in = LocalDate.of(2026, 1, 10);
         LocalDate out = LocalDate.of(2026, 1, 12);
 
-        // bookedRoomsInDateRange -> room1 booked
-        when(roomRepository.findBookedRoomsInDateRange(in, out, "DELUXE")).thenReturn(List.of(room1));
+        // bitmap -> 2, 5, 7, 9 boş; cursor=2, size=2 -> 5 ve 7, sonraki sayfa 7'den sonra başlar
+        when(occupancyBitmap.findAvailableRoomIds("DELUXE", in, out)).thenReturn(Optional.of(List.of(2L, 5L, 7L, 9L)));
+        when(roomRepository.findRoomDtosByIdIn(List.of(5L, 7L))).thenReturn(List.of(
+                new RoomDto(5L, "DELUXE", new BigDecimal("500.00")),
+                new RoomDto(7L, "DELUXE", new BigDecimal("500.00"))
+        ));
+
+        CursorPage<RoomDto> available = roomService.getAvailableRooms(in, out, "DELUXE", Cursors.encode(2L), 2);
+
+        assertEquals(2, available.getItems().size());
+        assertEquals(5L, available.getItems().get(0).getId());
+        assertEquals(Cursors.encode(7L), available.getNextCursor());
+
+        verify(roomRepository).findRoomDtosByIdIn(List.of(5L, 7L));
+        verify(roomRepository, never()).findAvailableRoomDtos(any(), any(), any(), any(), any());
+    }
 
-        // all rooms of type -> room1 + room2
-        when(roomRepository.findByRoomType("DELUXE")).thenReturn(List.of(room1, room2));
+    @Test
+    void getAvailableRooms_whenLastBitmapPage_shouldReturnNoNextCursor() {
+        LocalDate in = LocalDate.of(2026, 1, 10);
+        LocalDate out = LocalDate.of(2026, 1, 12);
 
-        List<RoomDto> available = roomService.getAvailableRooms(in, out, "DELUXE");
+        when(occupancyBitmap.findAvailableRoomIds("DELUXE", in, out)).thenReturn(Optional.of(List.of(2L, 5L, 7L, 9L)));
+        when(roomRepository.findRoomDtosByIdIn(List.of(9L))).thenReturn(List.of(new RoomDto(9L, "DELUXE", new BigDecimal("500.00"))));
 
-        // room1 booked -> sadece room2 kalmalı
-        assertEquals(1, available.size());
-        assertEquals(2L, available.get(0).getId());
+        CursorPage<RoomDto> available = roomService.getAvailableRooms(in, out, "DELUXE", Cursors.encode(7L), 2);
 
-        verify(roomRepository).findBookedRoomsInDateRange(in, out, "DELUXE");
-        verify(roomRepository).findByRoomType("DELUXE");
+        assertEquals(1, available.getItems().size());
+        assertNull(available.getNextCursor());
+    }
+
+    @Test
+    void getAvailableRooms_whenOutsideBitmapHorizon_shouldFallBackToAntiJoinQuery() {
+        LocalDate in = LocalDate.of(2030, 1, 10);
+        LocalDate out = LocalDate.of(2030, 1, 12);
+
+        when(occupancyBitmap.findAvailableRoomIds("DELUXE", in, out)).thenReturn(Optional.empty());
+        when(roomRepository.findAvailableRoomDtos(in, out, 1, 0L, Limit.of(21)))
+                .thenReturn(List.of(new RoomDto(2L, "DELUXE", new BigDecimal("500.00"))));
+
+        CursorPage<RoomDto> available = roomService.getAvailableRooms(in, out, "DELUXE", null, 20);
+
+        assertEquals(1, available.getItems().size());
+        assertEquals(2L, available.getItems().get(0).getId());
+        assertNull(available.getNextCursor());
+
+        verify(roomRepository).findAvailableRoomDtos(in, out, 1, 0L, Limit.of(21));
+    }
+
+    @Test
+    void getAvailableRooms_whenCursorInvalid_shouldThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class,
+                () -> roomService.getAvailableRooms(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12), "DELUXE", "not-a-cursor", 20));
+    }
+
+    @Test
+    void getAvailableRooms_whenRoomTypeUnknown_shouldReturnEmptyWithoutQuerying() {
+        CursorPage<RoomDto> available = roomService.getAvailableRooms(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 12), "PENTHOUSE", null, 20);
+
+        assertTrue(available.getItems().isEmpty());
+        assertNull(available.getNextCursor());
+        verifyNoInteractions(occupancyBitmap);
+        verifyNoInteractions(roomRepository);
     }
 
     @Test
     void updateRoom_whenFoundAndPhotoProvided_shouldUpdateAndSave() throws IOException {
         MultipartFile photo = mock(MultipartFile.class);
-        when(photo.getBytes()).thenReturn("new-photo".getBytes());
+        InputStream upload = new ByteArrayInputStream("new-photo".getBytes());
+        when(photo.getInputStream()).thenReturn(upload);
+        when(photoLibrary.acquire(upload)).thenReturn(PHOTO_KEY_2);
 
         when(roomRepository.findById(1L)).thenReturn(Optional.of(room1));
         when(roomRepository.save(any(Room.class))).thenReturn(room1);
@@ -181,9 +339,29 @@ public class RoomServiceTest {
 
         assertEquals(1L, updated.getId());
         assertEquals(new BigDecimal("1600.00"), updated.getRoomPrice());
+        assertEquals(PHOTO_KEY_2, room1.getPhotoKey());
 
         verify(roomRepository).findById(1L);
         verify(roomRepository).save(any(Room.class));
+        // Eski fotoğrafın referansı bırakılır, dosyayı silmek PhotoLibrary'nin işi
+        verify(photoLibrary).release(PHOTO_KEY_1);
+        // Tip değişmedi, dictionary'ye dokunulmaz
+        verify(roomTypeRepository, never()).deleteIfUnused(any());
+    }
+
+    @Test
+    void updateRoom_whenSamePhotoUploadedAgain_shouldNotReleaseIt() throws IOException {
+        MultipartFile photo = mock(MultipartFile.class);
+        InputStream upload = new ByteArrayInputStream("img1".getBytes());
+        when(photo.getInputStream()).thenReturn(upload);
+        when(photoLibrary.acquire(upload)).thenReturn(PHOTO_KEY_1);
+
+        when(roomRepository.findById(1L)).thenReturn(Optional.of(room1));
+        when(roomRepository.save(any(Room.class))).thenReturn(room1);
+
+        roomService.updateRoom(1L, "DELUXE", new BigDecimal("1600.00"), photo);
+
+        verify(photoLibrary, never()).release(any());
     }
 
     @Test
@@ -195,7 +373,13 @@ public class RoomServiceTest {
         roomService.deleteRoom(1L);
 
         verify(roomRepository).findById(1L);
+        verify(roomNightRepository).deleteByRoomId(1L);
         verify(roomRepository).delete(room1);
+        verify(availabilityIndex).evictRoom(1L);
+        verify(occupancyBitmap).removeRoom(1L);
+        verify(photoLibrary).release(PHOTO_KEY_1);
+        verify(catalogCache).invalidate(1L);
+        verify(roomTypeRepository).deleteIfUnused(1);
     }
 
     @Test
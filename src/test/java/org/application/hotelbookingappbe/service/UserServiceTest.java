@@ -0,0 +1,98 @@
+package org.application.hotelbookingappbe.service;
+
+import org.application.hotelbookingappbe.model.User;
+import org.application.hotelbookingappbe.repository.RoleRepository;
+import org.application.hotelbookingappbe.repository.UserRepository;
+import org.application.hotelbookingappbe.security.jwt.TokenEpochs;
+import org.application.hotelbookingappbe.security.user.UserDetailsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private TokenEpochs tokenEpochs;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User existing;
+
+    @BeforeEach
+    void init() {
+        existing = new User();
+        existing.setId(5L);
+        existing.setFirstName("Ahmet");
+        existing.setEmail("ahmet@mail.com");
+        existing.setPassword("encoded-secret");
+
+        when(userRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void updateUser_whenOnlyNameChanges_shouldKeepHashAndSessions() {
+        when(passwordEncoder.matches("secret", "encoded-secret")).thenReturn(true);
+
+        User saved = userService.updateUser(5L, update("ahmet@mail.com", "secret"));
+
+        assertEquals("Mehmet", saved.getFirstName());
+        assertEquals("encoded-secret", saved.getPassword());
+        verify(passwordEncoder, never()).encode(any());
+        // Profil düzenlemesi kullanıcının kendi oturumunu kapatmamalı
+        verifyNoInteractions(tokenEpochs);
+    }
+
+    @Test
+    void updateUser_whenPasswordChanges_shouldEncodeAndRevokeSessions() {
+        when(passwordEncoder.matches("new-secret", "encoded-secret")).thenReturn(false);
+        when(passwordEncoder.encode("new-secret")).thenReturn("encoded-new-secret");
+
+        User saved = userService.updateUser(5L, update("ahmet@mail.com", "new-secret"));
+
+        assertEquals("encoded-new-secret", saved.getPassword());
+        verify(tokenEpochs).bump(5L);
+    }
+
+    @Test
+    void updateUser_whenEmailChanges_shouldRevokeSessions() {
+        when(passwordEncoder.matches("secret", "encoded-secret")).thenReturn(true);
+
+        userService.updateUser(5L, update("mehmet@mail.com", "secret"));
+
+        verify(tokenEpochs).bump(5L);
+    }
+
+    private static User update(String email, String password) {
+        User user = new User();
+        user.setFirstName("Mehmet");
+        user.setLastName("Yılmaz");
+        user.setEmail(email);
+        user.setPassword(password);
+        return user;
+    }
+}